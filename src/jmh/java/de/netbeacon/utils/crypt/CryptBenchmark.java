@@ -0,0 +1,67 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.utils.crypt;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the message throughput of deriving the key per operation ({@link Crypt}) with a once derived key ({@link KeyedCrypt})
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptBenchmark{
+
+	private static final String PASSWORD = "benchmark-password";
+
+	@Param({"LEGACY", "KEYED"})
+	public String mode;
+
+	@Param({"BOUNCY_CASTLE", "JCA"})
+	public Crypt.Backend backend;
+
+	private byte[] content;
+	private byte[] salt;
+	private byte[] encrypted;
+
+	@Setup
+	public void setup() throws InvalidCipherTextException{
+		Crypt.setBackend(backend);
+		content = "a message of average length which is sent to a discord channel, containing a few words".repeat(3).getBytes(StandardCharsets.UTF_8);
+		salt = Crypt.genSalt();
+		encrypted = mode.equals("KEYED") ? KeyedCrypt.forPassword(PASSWORD).encrypt(content, salt) : Crypt.encrypt(content, PASSWORD, salt);
+	}
+
+	@Benchmark
+	public byte[] encrypt() throws InvalidCipherTextException{
+		byte[] nonce = Crypt.genSalt();
+		return mode.equals("KEYED") ? KeyedCrypt.forPassword(PASSWORD).encrypt(content, nonce) : Crypt.encrypt(content, PASSWORD, nonce);
+	}
+
+	@Benchmark
+	public byte[] decrypt() throws InvalidCipherTextException{
+		return mode.equals("KEYED") ? KeyedCrypt.forPassword(PASSWORD).decrypt(encrypted, salt) : Crypt.decrypt(encrypted, PASSWORD, salt);
+	}
+
+}
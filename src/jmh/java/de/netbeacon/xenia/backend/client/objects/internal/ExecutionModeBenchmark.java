@@ -0,0 +1,114 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
+import de.netbeacon.xenia.backend.client.objects.cache.MemberCache;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the time it takes to retrieve 5000 members at the same time from a backend responding with a fixed latency
+ * <p>
+ * Virtual threads need to be supported by the jvm running the benchmark, otherwise both modes use platform threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutionModeBenchmark{
+
+	private static final int REQUESTS = 5000;
+	private static final long LATENCY = 20; // ms
+	private static final long GUILD_ID = 700000000000000000L;
+	private static final long USER_ID = 800000000000000000L;
+
+	@Param({"PLATFORM", "VIRTUAL"})
+	public BackendSettings.ExecutionMode executionMode;
+
+	private MockWebServer server;
+	private BackendProcessor backendProcessor;
+	private MemberCache cache;
+
+	@Setup
+	public void setup() throws Exception{
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher(){
+			@Override
+			public MockResponse dispatch(RecordedRequest recordedRequest){
+				List<String> segments = recordedRequest.getRequestUrl().pathSegments();
+				JSONObject member = new JSONObject()
+					.put("guildId", GUILD_ID)
+					.put("userId", Long.parseLong(segments.get(segments.size() - 1)))
+					.put("creationTimestamp", 0)
+					.put("roles", new JSONArray())
+					.put("levelPoints", 0)
+					.put("meta", new JSONObject().put("nickname", "member").put("isAdministrator", false).put("isOwner", false));
+				return new MockResponse().setBody(member.toString()).setHeadersDelay(LATENCY, TimeUnit.MILLISECONDS);
+			}
+		});
+		server.start();
+		BackendSettings backendSettings = new BackendSettings("http", server.getHostName(), server.getPort(), 1, "password", "key")
+			.setExecutionMode(executionMode);
+		backendSettings.setToken("token");
+		XeniaBackendClient client = mock(XeniaBackendClient.class);
+		when(client.getBackendSettings()).thenReturn(backendSettings);
+		when(client.getOkHttpClient()).thenReturn(new OkHttpClient());
+		backendProcessor = new BackendProcessor(client);
+		cache = new MemberCache(backendProcessor, GUILD_ID);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception{
+		backendProcessor.onShutdown();
+		server.shutdown();
+	}
+
+	@Benchmark
+	public int retrieve() throws InterruptedException{
+		CountDownLatch latch = new CountDownLatch(REQUESTS);
+		AtomicInteger failed = new AtomicInteger();
+		for(int i = 0; i < REQUESTS; i++){
+			cache.retrieve(USER_ID + i, false).queue(member -> latch.countDown(), e -> {
+				failed.incrementAndGet();
+				latch.countDown();
+			});
+		}
+		latch.await();
+		if(failed.get() > 0){
+			throw new IllegalStateException(failed.get() + " of " + REQUESTS + " retrievals failed");
+		}
+		return REQUESTS;
+	}
+
+}
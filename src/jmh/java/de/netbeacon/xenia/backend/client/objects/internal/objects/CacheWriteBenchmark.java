@@ -0,0 +1,89 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
+import de.netbeacon.xenia.backend.client.objects.apidata.User;
+import de.netbeacon.xenia.backend.client.objects.cache.UserCache;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendSettings;
+import okhttp3.OkHttpClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures cache writes of 64 concurrent writers on different keys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class CacheWriteBenchmark{
+
+	private static final int KEYS = 1 << 16;
+
+	@Param({"UNBOUNDED", "LRU"})
+	public String policy;
+
+	private BackendProcessor backendProcessor;
+	private UserCache cache;
+	private User[] users;
+
+	@Setup
+	public void setup(){
+		BackendSettings backendSettings = new BackendSettings("http", "localhost", 0, 1, "password", "key");
+		if(policy.equals("LRU")){
+			backendSettings.setCachePolicy(UserCache.class, CachePolicy.lru(KEYS / 2));
+		}
+		XeniaBackendClient client = mock(XeniaBackendClient.class);
+		when(client.getBackendSettings()).thenReturn(backendSettings);
+		when(client.getOkHttpClient()).thenReturn(new OkHttpClient());
+		backendProcessor = new BackendProcessor(client);
+		cache = new UserCache(backendProcessor);
+		users = new User[KEYS];
+		for(int i = 0; i < KEYS; i++){
+			users[i] = new User(backendProcessor, 800000000000000000L + i);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception{
+		backendProcessor.onShutdown();
+	}
+
+	@Benchmark
+	public User insert(){
+		User user = users[ThreadLocalRandom.current().nextInt(KEYS)];
+		return cache.add_(user.getId(), user);
+	}
+
+	@Benchmark
+	public void insertAndRemove(){
+		User user = users[ThreadLocalRandom.current().nextInt(KEYS)];
+		cache.add_(user.getId(), user);
+		cache.remove_(user.getId());
+	}
+
+}
@@ -22,6 +22,7 @@ import java.util.List;
 public abstract class IntegerBitFlags{
 
 	private int value;
+	private volatile Runnable changeListener;
 
 	public IntegerBitFlags(int value){
 		this.value = value;
@@ -31,16 +32,34 @@ public abstract class IntegerBitFlags{
 		return value;
 	}
 
+	/**
+	 * Sets a listener called after bits have been set or unset, eg. to mark the object owning the flags as changed
+	 *
+	 * @param changeListener listener, replaces the previous one
+	 */
+	public void setChangeListener(Runnable changeListener){
+		this.changeListener = changeListener;
+	}
+
 	public synchronized void set(IntBit... bits){
 		for(IntBit b : bits){
 			value |= 1 << b.getPos();
 		}
+		notifyChange();
 	}
 
 	public synchronized void unset(IntBit... bits){
 		for(IntBit b : bits){
 			value &= ~(1 << b.getPos());
 		}
+		notifyChange();
+	}
+
+	private void notifyChange(){
+		Runnable listener = changeListener;
+		if(listener != null){
+			listener.run();
+		}
 	}
 
 	public boolean has(IntBit bit){
@@ -22,6 +22,7 @@ import java.util.List;
 public abstract class LongBitFlags{
 
 	private long value;
+	private volatile Runnable changeListener;
 
 	public LongBitFlags(long value){
 		this.value = value;
@@ -31,16 +32,34 @@ public abstract class LongBitFlags{
 		return value;
 	}
 
+	/**
+	 * Sets a listener called after bits have been set or unset, eg. to mark the object owning the flags as changed
+	 *
+	 * @param changeListener listener, replaces the previous one
+	 */
+	public void setChangeListener(Runnable changeListener){
+		this.changeListener = changeListener;
+	}
+
 	public synchronized void set(LongBit... bits){
 		for(LongBit b : bits){
 			value |= 1L << b.getPos();
 		}
+		notifyChange();
 	}
 
 	public synchronized void unset(LongBit... bits){
 		for(LongBit b : bits){
 			value &= ~(1L << b.getPos());
 		}
+		notifyChange();
+	}
+
+	private void notifyChange(){
+		Runnable listener = changeListener;
+		if(listener != null){
+			listener.run();
+		}
 	}
 
 	public boolean has(LongBit bit){
@@ -0,0 +1,392 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.utils.collections;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent hash map using primitive long keys
+ * <p>
+ * The map is split into segments, each one being an open addressing table with linear probing
+ * (long[] keys, Object[] values) guarded by its own lock. Reads are lock free as long as the segment
+ * is not modified at the same time. Null values are not supported.
+ *
+ * @param <V> value
+ *
+ * @author horstexplorer
+ */
+public class ConcurrentLongHashMap<V>{
+
+	private static final int DEFAULT_SEGMENT_BITS = 4;
+	private static final int MIN_SEGMENT_CAPACITY = 16;
+
+	private final Segment<V>[] segments;
+	private final int segmentShift;
+
+	/**
+	 * Creates a new instance of this class with 16 segments
+	 */
+	public ConcurrentLongHashMap(){
+		this(DEFAULT_SEGMENT_BITS, 0);
+	}
+
+	/**
+	 * Creates a new instance of this class
+	 *
+	 * @param segmentBits     number of segments as power of two
+	 * @param initialCapacity expected number of entries
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongHashMap(int segmentBits, int initialCapacity){
+		if(segmentBits < 0 || segmentBits > 16){
+			throw new IllegalArgumentException("segmentBits out of range");
+		}
+		this.segments = (Segment<V>[]) new Segment<?>[1 << segmentBits];
+		this.segmentShift = 64 - segmentBits;
+		int perSegment = tableSizeFor((initialCapacity >> segmentBits) * 4 / 3 + 1);
+		for(int i = 0; i < segments.length; i++){
+			segments[i] = new Segment<>(perSegment);
+		}
+	}
+
+	/**
+	 * Returns the value mapped to the key
+	 *
+	 * @param key key
+	 *
+	 * @return value or null
+	 */
+	public V get(long key){
+		long hash = mix(key);
+		return segmentFor(hash).get(key, hash);
+	}
+
+	/**
+	 * Checks whether the key is mapped to a value
+	 *
+	 * @param key key
+	 *
+	 * @return true if it is
+	 */
+	public boolean containsKey(long key){
+		return get(key) != null;
+	}
+
+	/**
+	 * Maps the key to the value
+	 *
+	 * @param key   key
+	 * @param value value, not null
+	 *
+	 * @return the previous value or null
+	 */
+	public V put(long key, V value){
+		if(value == null){
+			throw new NullPointerException();
+		}
+		long hash = mix(key);
+		return segmentFor(hash).put(key, hash, value);
+	}
+
+	/**
+	 * Removes the mapping of the key
+	 *
+	 * @param key key
+	 *
+	 * @return the removed value or null
+	 */
+	public V remove(long key){
+		long hash = mix(key);
+		return segmentFor(hash).remove(key, hash, null);
+	}
+
+	/**
+	 * Removes the mapping of the key only if it is mapped to the given value (identity)
+	 *
+	 * @param key   key
+	 * @param value expected value
+	 *
+	 * @return true if the mapping has been removed
+	 */
+	public boolean remove(long key, V value){
+		if(value == null){
+			return false;
+		}
+		long hash = mix(key);
+		return segmentFor(hash).remove(key, hash, value) != null;
+	}
+
+	/**
+	 * @return number of entries
+	 */
+	public int size(){
+		int size = 0;
+		for(var segment : segments){
+			size += segment.size;
+		}
+		return size;
+	}
+
+	/**
+	 * @return true if there are no entries
+	 */
+	public boolean isEmpty(){
+		return size() == 0;
+	}
+
+	/**
+	 * Passes all entries to the consumer, segment by segment
+	 *
+	 * @param consumer consumer
+	 */
+	public void forEach(LongObjectConsumer<V> consumer){
+		for(var segment : segments){
+			segment.forEach(consumer);
+		}
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear(){
+		for(var segment : segments){
+			segment.clear();
+		}
+	}
+
+	private Segment<V> segmentFor(long hash){
+		return segments.length == 1 ? segments[0] : segments[(int) (hash >>> segmentShift)];
+	}
+
+	/**
+	 * Spreads the bits of the key as snowflakes mostly differ in their lower bits (murmur3 finalizer)
+	 *
+	 * @param key key
+	 *
+	 * @return hash
+	 */
+	private static long mix(long key){
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	private static int tableSizeFor(int capacity){
+		int size = MIN_SEGMENT_CAPACITY;
+		while(size < capacity && size < (1 << 30)){
+			size <<= 1;
+		}
+		return size;
+	}
+
+	public interface LongObjectConsumer<V>{
+
+		void accept(long key, V value);
+
+	}
+
+	private static class Segment<V>{
+
+		private final StampedLock lock = new StampedLock();
+		private volatile Table table;
+		private volatile int size;
+
+		private Segment(int capacity){
+			this.table = new Table(capacity);
+		}
+
+		private V get(long key, long hash){
+			long stamp = lock.tryOptimisticRead();
+			if(stamp != 0){
+				V value = find(table, key, hash);
+				if(lock.validate(stamp)){
+					return value;
+				}
+			}
+			stamp = lock.readLock();
+			try{
+				return find(table, key, hash);
+			}
+			finally{
+				lock.unlockRead(stamp);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private V find(Table table, long key, long hash){
+			int mask = table.values.length - 1;
+			int index = (int) hash & mask;
+			// bounded so that a torn optimistic read cant loop forever
+			for(int i = 0; i <= mask; i++){
+				Object value = table.values[index];
+				if(value == null){
+					return null;
+				}
+				if(table.keys[index] == key){
+					return (V) value;
+				}
+				index = (index + 1) & mask;
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		private V put(long key, long hash, V value){
+			long stamp = lock.writeLock();
+			try{
+				var table = this.table;
+				int mask = table.values.length - 1;
+				int index = (int) hash & mask;
+				while(table.values[index] != null){
+					if(table.keys[index] == key){
+						V previous = (V) table.values[index];
+						table.values[index] = value;
+						return previous;
+					}
+					index = (index + 1) & mask;
+				}
+				table.keys[index] = key;
+				table.values[index] = value;
+				size = size + 1;
+				if(size * 4 >= table.values.length * 3){
+					resize(table.values.length << 1);
+				}
+				return null;
+			}
+			finally{
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private V remove(long key, long hash, V expected){
+			long stamp = lock.writeLock();
+			try{
+				var table = this.table;
+				int mask = table.values.length - 1;
+				int index = (int) hash & mask;
+				while(table.values[index] != null){
+					if(table.keys[index] == key){
+						V value = (V) table.values[index];
+						if(expected != null && value != expected){
+							return null;
+						}
+						delete(table, index);
+						size = size - 1;
+						return value;
+					}
+					index = (index + 1) & mask;
+				}
+				return null;
+			}
+			finally{
+				lock.unlockWrite(stamp);
+			}
+		}
+
+		/**
+		 * Removes the entry by shifting following entries of the probe sequence back, so no tombstones are needed
+		 */
+		private void delete(Table table, int index){
+			int mask = table.values.length - 1;
+			int gap = index;
+			int next = index;
+			while(true){
+				next = (next + 1) & mask;
+				if(table.values[next] == null){
+					break;
+				}
+				int home = (int) mix(table.keys[next]) & mask;
+				// move the entry into the gap if its home slot is not located between the gap and its current slot
+				boolean between = (gap <= next) ? (gap < home && home <= next) : (gap < home || home <= next);
+				if(!between){
+					table.keys[gap] = table.keys[next];
+					table.values[gap] = table.values[next];
+					gap = next;
+				}
+			}
+			table.keys[gap] = 0;
+			table.values[gap] = null;
+		}
+
+		private void resize(int capacity){
+			var old = this.table;
+			var resized = new Table(capacity);
+			int mask = capacity - 1;
+			for(int i = 0; i < old.values.length; i++){
+				if(old.values[i] == null){
+					continue;
+				}
+				int index = (int) mix(old.keys[i]) & mask;
+				while(resized.values[index] != null){
+					index = (index + 1) & mask;
+				}
+				resized.keys[index] = old.keys[i];
+				resized.values[index] = old.values[i];
+			}
+			this.table = resized;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void forEach(LongObjectConsumer<V> consumer){
+			long[] keys;
+			Object[] values;
+			long stamp = lock.readLock();
+			try{
+				// copy so that the consumer can modify the map
+				keys = table.keys.clone();
+				values = table.values.clone();
+			}
+			finally{
+				lock.unlockRead(stamp);
+			}
+			for(int i = 0; i < values.length; i++){
+				if(values[i] != null){
+					consumer.accept(keys[i], (V) values[i]);
+				}
+			}
+		}
+
+		private void clear(){
+			long stamp = lock.writeLock();
+			try{
+				table = new Table(MIN_SEGMENT_CAPACITY);
+				size = 0;
+			}
+			finally{
+				lock.unlockWrite(stamp);
+			}
+		}
+
+	}
+
+	private static class Table{
+
+		private final long[] keys;
+		private final Object[] values;
+
+		private Table(int capacity){
+			this.keys = new long[capacity];
+			this.values = new Object[capacity];
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.utils.collections;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List notifying a listener after it has been modified
+ *
+ * @param <E> element
+ *
+ * @author horstexplorer
+ */
+public class ObservedList<E> extends AbstractList<E> implements RandomAccess{
+
+	private final List<E> list;
+	private final Runnable onChange;
+
+	/**
+	 * Creates a new instance of this class
+	 *
+	 * @param list     backing list, should not be modified directly anymore
+	 * @param onChange called after each modification
+	 */
+	public ObservedList(List<E> list, Runnable onChange){
+		this.list = list;
+		this.onChange = onChange;
+	}
+
+	@Override
+	public E get(int index){
+		return list.get(index);
+	}
+
+	@Override
+	public E set(int index, E element){
+		E previous = list.set(index, element);
+		onChange.run();
+		return previous;
+	}
+
+	@Override
+	public void add(int index, E element){
+		list.add(index, element);
+		modCount++;
+		onChange.run();
+	}
+
+	@Override
+	public E remove(int index){
+		E removed = list.remove(index);
+		modCount++;
+		onChange.run();
+		return removed;
+	}
+
+	@Override
+	public void clear(){
+		if(!list.isEmpty()){
+			list.clear();
+			modCount++;
+			onChange.run();
+		}
+	}
+
+	@Override
+	public int size(){
+		return list.size();
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.utils.collections;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Set notifying a listener after it has been modified
+ *
+ * @param <E> element
+ *
+ * @author horstexplorer
+ */
+public class ObservedSet<E> extends AbstractSet<E>{
+
+	private final Set<E> set;
+	private final Runnable onChange;
+
+	/**
+	 * Creates a new instance of this class
+	 *
+	 * @param set      backing set, should not be modified directly anymore
+	 * @param onChange called after each modification
+	 */
+	public ObservedSet(Set<E> set, Runnable onChange){
+		this.set = set;
+		this.onChange = onChange;
+	}
+
+	@Override
+	public boolean add(E e){
+		boolean changed = set.add(e);
+		if(changed){
+			onChange.run();
+		}
+		return changed;
+	}
+
+	@Override
+	public boolean remove(Object o){
+		boolean changed = set.remove(o);
+		if(changed){
+			onChange.run();
+		}
+		return changed;
+	}
+
+	@Override
+	public void clear(){
+		if(!set.isEmpty()){
+			set.clear();
+			onChange.run();
+		}
+	}
+
+	@Override
+	public boolean contains(Object o){
+		return set.contains(o);
+	}
+
+	@Override
+	public int size(){
+		return set.size();
+	}
+
+	@Override
+	public Iterator<E> iterator(){
+		Iterator<E> iterator = set.iterator();
+		return new Iterator<>(){
+			@Override
+			public boolean hasNext(){
+				return iterator.hasNext();
+			}
+
+			@Override
+			public E next(){
+				return iterator.next();
+			}
+
+			@Override
+			public void remove(){
+				iterator.remove();
+				onChange.run();
+			}
+		};
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package de.netbeacon.utils.crypt;
 
+import java.nio.ByteBuffer;
+
 /**
  * Simple QOL wrap for base64 en/decoding
  *
@@ -34,6 +36,20 @@ public class Base64{
 		return java.util.Base64.getEncoder().encode(bytes);
 	}
 
+	/**
+	 * Used to encode the remaining bytes of a buffer as base64
+	 *
+	 * @param buffer input, its position is not modified
+	 *
+	 * @return base64 encoded output
+	 */
+	public static byte[] encode(ByteBuffer buffer){
+		ByteBuffer encoded = java.util.Base64.getEncoder().encode(buffer.duplicate());
+		byte[] bytes = new byte[encoded.remaining()];
+		encoded.get(bytes);
+		return bytes;
+	}
+
 	/**
 	 * Used to decode base64 encoded bytes
 	 *
@@ -25,9 +25,16 @@ import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.generators.PKCS12ParametersGenerator;
 import org.bouncycastle.crypto.modes.CBCBlockCipher;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 /**
  * Used to en/decrypt bytes
@@ -36,6 +43,30 @@ import java.security.SecureRandom;
  */
 public class Crypt{
 
+	private static final ThreadLocal<SecureRandom> SECURE_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+	private static final ThreadLocal<Cipher> AES_CBC = ThreadLocal.withInitial(() -> newCipher("AES/CBC/PKCS5Padding"));
+	private static volatile Backend backend = Backend.JCA;
+
+	/**
+	 * Sets the implementation used for en- and decryption
+	 * <p>
+	 * Both backends produce the same output, so data can be decrypted independent of the backend it got encrypted with
+	 *
+	 * @param backend backend
+	 */
+	public static void setBackend(Backend backend){
+		Crypt.backend = backend;
+	}
+
+	/**
+	 * Returns the implementation used for en- and decryption
+	 *
+	 * @return backend
+	 */
+	public static Backend getBackend(){
+		return backend;
+	}
+
 	/**
 	 * Used to encrypt the input with a given password.
 	 * <p>
@@ -98,6 +129,34 @@ public class Crypt{
 		return crypt(bytes, password, salt, false);
 	}
 
+	/**
+	 * Used to decrypt the input with a given password.
+	 * <p>
+	 * When using {@link Backend#JCA} the input is passed to the cipher directly, so direct buffers are not copied to the heap
+	 *
+	 * @param buffer   input bytes between position and limit, the position of the buffer is not modified
+	 * @param password password
+	 * @param salt     salt
+	 *
+	 * @return decrypted bytes
+	 *
+	 * @throws InvalidCipherTextException on exception
+	 */
+	public static byte[] decrypt(ByteBuffer buffer, String password, byte[] salt) throws InvalidCipherTextException{
+		if(backend != Backend.JCA){
+			return decrypt(toArray(buffer), password, salt);
+		}
+		ParametersWithIV key = (ParametersWithIV) getAESPassKey(password.toCharArray(), salt);
+		try{
+			Cipher cipher = AES_CBC.get();
+			cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(((KeyParameter) key.getParameters()).getKey(), "AES"), new IvParameterSpec(key.getIV()));
+			return doFinal(cipher, buffer);
+		}
+		catch(GeneralSecurityException e){
+			throw new InvalidCipherTextException("Failed to decrypt data", e);
+		}
+	}
+
 	/**
 	 * This does the actual en- and decryption
 	 *
@@ -112,6 +171,9 @@ public class Crypt{
 	 */
 	private static byte[] crypt(byte[] bytes, String password, byte[] salt, boolean mode) throws InvalidCipherTextException{
 		ParametersWithIV key = (ParametersWithIV) getAESPassKey(password.toCharArray(), salt);
+		if(backend == Backend.JCA){
+			return cryptJCA(bytes, key, mode);
+		}
 		BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(new CBCBlockCipher(new AESEngine()));
 		cipher.init(mode, key);
 		byte[] result = new byte[cipher.getOutputSize(bytes.length)];
@@ -138,6 +200,73 @@ public class Crypt{
 		}
 	}
 
+	/**
+	 * En- and decryption using the aes implementation of the jvm, which makes use of hardware acceleration if available
+	 *
+	 * @param bytes input bytes
+	 * @param key   key and iv
+	 * @param mode  boolean for encryption
+	 *
+	 * @return byte[] en-/decrypted data
+	 *
+	 * @throws InvalidCipherTextException on exception
+	 */
+	private static byte[] cryptJCA(byte[] bytes, ParametersWithIV key, boolean mode) throws InvalidCipherTextException{
+		try{
+			Cipher cipher = AES_CBC.get();
+			cipher.init(mode ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, new SecretKeySpec(((KeyParameter) key.getParameters()).getKey(), "AES"), new IvParameterSpec(key.getIV()));
+			return cipher.doFinal(bytes);
+		}
+		catch(GeneralSecurityException e){
+			throw new InvalidCipherTextException("Failed to " + (mode ? "encrypt" : "decrypt") + " data", e);
+		}
+	}
+
+	/**
+	 * Finishes the operation of an initialized cipher on the input buffer
+	 *
+	 * @param cipher initialized cipher
+	 * @param input  input bytes between position and limit, the position of the buffer is not modified
+	 *
+	 * @return output bytes
+	 *
+	 * @throws GeneralSecurityException on exception
+	 */
+	static byte[] doFinal(Cipher cipher, ByteBuffer input) throws GeneralSecurityException{
+		ByteBuffer output = ByteBuffer.allocate(cipher.getOutputSize(input.remaining()));
+		cipher.doFinal(input.duplicate(), output);
+		return output.position() == output.capacity() ? output.array() : Arrays.copyOf(output.array(), output.position());
+	}
+
+	/**
+	 * Copies the remaining bytes of the buffer
+	 *
+	 * @param buffer buffer, its position is not modified
+	 *
+	 * @return bytes
+	 */
+	static byte[] toArray(ByteBuffer buffer){
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Creates a new cipher instance of the jvm provider
+	 *
+	 * @param transformation eg. AES/CBC/PKCS5Padding
+	 *
+	 * @return Cipher
+	 */
+	static Cipher newCipher(String transformation){
+		try{
+			return Cipher.getInstance(transformation);
+		}
+		catch(GeneralSecurityException e){
+			throw new IllegalStateException("Cipher " + transformation + " is not available", e);
+		}
+	}
+
 	/**
 	 * Returns CipherParameters for the given input
 	 *
@@ -170,8 +299,19 @@ public class Crypt{
 	 */
 	public static byte[] genSalt(){
 		byte[] bytes = new byte[16];
-		new SecureRandom().nextBytes(bytes);
+		SECURE_RANDOM.get().nextBytes(bytes);
 		return bytes;
 	}
 
+	public enum Backend{
+		/**
+		 * Pure java implementation of bouncy castle
+		 */
+		BOUNCY_CASTLE,
+		/**
+		 * Implementation of the jvm, using aes instructions of the cpu if available
+		 */
+		JCA
+	}
+
 }
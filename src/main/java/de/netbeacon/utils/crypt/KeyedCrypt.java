@@ -0,0 +1,193 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.netbeacon.utils.crypt;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Used to en/decrypt bytes with a key which is derived from the password only once
+ * <p>
+ * In contrast to {@link Crypt} the expensive password derivation is not part of each operation,
+ * the per operation salt is used as nonce for AES-GCM instead. Data encrypted by this class
+ * is not compatible with {@link Crypt}, callers should store {@link KeyedCrypt#VERSION_TAG} alongside
+ * the salt to be able to tell both formats apart.
+ *
+ * @author horstexplorer
+ */
+public class KeyedCrypt{
+
+	/**
+	 * Tag to mark salts of data encrypted by this class, never part of a base64 encoded salt
+	 */
+	public static final String VERSION_TAG = "v2:";
+
+	private static final byte[] DERIVATION_SALT = "de.netbeacon.utils.crypt.KeyedCrypt".getBytes(StandardCharsets.UTF_8);
+	private static final int DERIVATION_ITERATIONS = 65536;
+	private static final int TAG_LENGTH = 128;
+	private static final int MAX_INSTANCES = 16;
+	// keyed by the digest of the password so that the password itself is not retained
+	private static final ConcurrentHashMap<ByteBuffer, KeyedCrypt> INSTANCES = new ConcurrentHashMap<>();
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	});
+	private static final ThreadLocal<Cipher> AES_GCM = ThreadLocal.withInitial(() -> Crypt.newCipher("AES/GCM/NoPadding"));
+
+	private final KeyParameter key;
+	private final SecretKeySpec secretKey;
+
+	/**
+	 * Creates a new instance of this class, deriving the key from the password
+	 *
+	 * @param password password
+	 */
+	public KeyedCrypt(String password){
+		PBEParametersGenerator generator = new PKCS5S2ParametersGenerator(new SHA512Digest());
+		generator.init(
+			PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(password.toCharArray()), DERIVATION_SALT, DERIVATION_ITERATIONS
+		);
+		this.key = (KeyParameter) generator.generateDerivedParameters(256);
+		this.secretKey = new SecretKeySpec(key.getKey(), "AES");
+	}
+
+	/**
+	 * Returns a shared instance for the given password, the key is derived on first use only
+	 * <p>
+	 * At most {@link #MAX_INSTANCES} instances are shared, all of them are dropped once this limit is exceeded
+	 *
+	 * @param password password
+	 *
+	 * @return KeyedCrypt
+	 */
+	public static KeyedCrypt forPassword(String password){
+		ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(password.getBytes(StandardCharsets.UTF_8)));
+		KeyedCrypt keyedCrypt = INSTANCES.get(digest);
+		if(keyedCrypt != null){
+			return keyedCrypt;
+		}
+		if(INSTANCES.size() >= MAX_INSTANCES){
+			INSTANCES.clear();
+		}
+		return INSTANCES.computeIfAbsent(digest, unused -> new KeyedCrypt(password));
+	}
+
+	/**
+	 * Used to encrypt the input
+	 *
+	 * @param bytes input bytes
+	 * @param salt  random salt, used as nonce and must never be reused for the same password
+	 *
+	 * @return encrypted bytes
+	 *
+	 * @throws InvalidCipherTextException on exception
+	 */
+	public byte[] encrypt(byte[] bytes, byte[] salt) throws InvalidCipherTextException{
+		return crypt(bytes, salt, true);
+	}
+
+	/**
+	 * Used to decrypt the input
+	 *
+	 * @param bytes input bytes
+	 * @param salt  salt used on encryption
+	 *
+	 * @return decrypted bytes
+	 *
+	 * @throws InvalidCipherTextException on exception or if the data has been modified
+	 */
+	public byte[] decrypt(byte[] bytes, byte[] salt) throws InvalidCipherTextException{
+		return crypt(bytes, salt, false);
+	}
+
+	/**
+	 * Used to decrypt the input
+	 * <p>
+	 * When using {@link Crypt.Backend#JCA} the input is passed to the cipher directly, so direct buffers are not copied to the heap
+	 *
+	 * @param buffer input bytes between position and limit, the position of the buffer is not modified
+	 * @param salt   salt used on encryption
+	 *
+	 * @return decrypted bytes
+	 *
+	 * @throws InvalidCipherTextException on exception or if the data has been modified
+	 */
+	public byte[] decrypt(ByteBuffer buffer, byte[] salt) throws InvalidCipherTextException{
+		if(Crypt.getBackend() != Crypt.Backend.JCA){
+			return decrypt(Crypt.toArray(buffer), salt);
+		}
+		try{
+			Cipher cipher = AES_GCM.get();
+			cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, salt));
+			return Crypt.doFinal(cipher, buffer);
+		}
+		catch(GeneralSecurityException e){
+			throw new InvalidCipherTextException("Failed to decrypt data", e);
+		}
+	}
+
+	/**
+	 * This does the actual en- and decryption using the backend selected in {@link Crypt#setBackend(Crypt.Backend)}
+	 *
+	 * @param bytes input bytes
+	 * @param salt  nonce
+	 * @param mode  boolean for encryption
+	 *
+	 * @return byte[] en-/decrypted data
+	 *
+	 * @throws InvalidCipherTextException on exception
+	 */
+	private byte[] crypt(byte[] bytes, byte[] salt, boolean mode) throws InvalidCipherTextException{
+		if(Crypt.getBackend() == Crypt.Backend.JCA){
+			try{
+				Cipher cipher = AES_GCM.get();
+				cipher.init(mode ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, salt));
+				return cipher.doFinal(bytes);
+			}
+			catch(GeneralSecurityException e){
+				throw new InvalidCipherTextException("Failed to " + (mode ? "encrypt" : "decrypt") + " data", e);
+			}
+		}
+		GCMBlockCipher cipher = new GCMBlockCipher(new AESEngine());
+		cipher.init(mode, new AEADParameters(key, TAG_LENGTH, salt));
+		byte[] result = new byte[cipher.getOutputSize(bytes.length)];
+		int outputLength = cipher.processBytes(bytes, 0, bytes.length, result, 0);
+		outputLength += cipher.doFinal(result, outputLength);
+		return outputLength == result.length ? result : Arrays.copyOf(result, outputLength);
+	}
+
+}
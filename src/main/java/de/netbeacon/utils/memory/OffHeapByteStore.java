@@ -0,0 +1,291 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.utils.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores byte sequences outside of the java heap
+ * <p>
+ * Memory is handed out from chunks of a fixed size by bumping an offset. Chunks are allocated as direct buffers until
+ * the direct capacity is used up, further chunks are mapped from a spill file if one has been configured.
+ * Each chunk counts the bytes of its live entries and gets reused once all of them are gone.
+ * <p>
+ * An entry is released when it becomes unreachable, there is no explicit free. Views of an entry are only valid
+ * as long as the entry itself is reachable.
+ *
+ * @author horstexplorer
+ */
+public class OffHeapByteStore implements Closeable{
+
+	private static final Cleaner CLEANER = Cleaner.create();
+	private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+	private final int chunkSize;
+	private final long directCapacity;
+	private final Path spillFile;
+	private final long spillCapacity;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Deque<Chunk> freeChunks = new ArrayDeque<>();
+	private FileChannel spillChannel;
+	private Chunk current;
+	private long directAllocated;
+	private long spillAllocated;
+	private long usedBytes;
+	private boolean closed;
+
+	/**
+	 * Creates a new instance of this class using direct memory only
+	 *
+	 * @param directCapacity max number of bytes allocated as direct memory
+	 */
+	public OffHeapByteStore(long directCapacity){
+		this(directCapacity, null, 0);
+	}
+
+	/**
+	 * Creates a new instance of this class
+	 *
+	 * @param directCapacity max number of bytes allocated as direct memory
+	 * @param spillFile      file to map additional chunks from once the direct capacity is used up, deleted on close
+	 * @param spillCapacity  max number of bytes mapped from the spill file
+	 */
+	public OffHeapByteStore(long directCapacity, Path spillFile, long spillCapacity){
+		this(DEFAULT_CHUNK_SIZE, directCapacity, spillFile, spillCapacity);
+	}
+
+	/**
+	 * Creates a new instance of this class
+	 *
+	 * @param chunkSize      size of a single chunk, limits the size of a single entry
+	 * @param directCapacity max number of bytes allocated as direct memory
+	 * @param spillFile      file to map additional chunks from once the direct capacity is used up, deleted on close
+	 * @param spillCapacity  max number of bytes mapped from the spill file
+	 */
+	public OffHeapByteStore(int chunkSize, long directCapacity, Path spillFile, long spillCapacity){
+		if(chunkSize <= 0){
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.chunkSize = chunkSize;
+		this.directCapacity = Math.max(0, directCapacity);
+		this.spillFile = spillFile;
+		this.spillCapacity = spillFile != null ? Math.max(0, spillCapacity) : 0;
+	}
+
+	/**
+	 * Copies the bytes into the store
+	 *
+	 * @param bytes input
+	 *
+	 * @return entry or null if the store is full, closed or the input exceeds the chunk size
+	 *
+	 * @throws IOException if mapping the spill file failed
+	 */
+	public Entry put(byte[] bytes) throws IOException{
+		if(bytes.length > chunkSize){
+			return null;
+		}
+		try{
+			lock.lock();
+			if(closed){
+				return null;
+			}
+			if(current == null || current.position + bytes.length > chunkSize){
+				Chunk chunk = nextChunk();
+				if(chunk == null){
+					return null;
+				}
+				if(current != null && current.live == 0){
+					current.position = 0;
+					freeChunks.add(current);
+				}
+				current = chunk;
+			}
+			int offset = current.position;
+			current.buffer.put(offset, bytes);
+			current.position += bytes.length;
+			current.live += bytes.length;
+			usedBytes += bytes.length;
+			Entry entry = new Entry(current, offset, bytes.length);
+			CLEANER.register(entry, new Release(this, current, bytes.length));
+			return entry;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of bytes held by live entries
+	 */
+	public long getUsedBytes(){
+		try{
+			lock.lock();
+			return usedBytes;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of bytes allocated as direct memory or mapped from the spill file
+	 */
+	public long getAllocatedBytes(){
+		try{
+			lock.lock();
+			return directAllocated + spillAllocated;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops handing out new entries and deletes the spill file
+	 * <p>
+	 * Existing entries stay readable, their memory is released by the garbage collector
+	 *
+	 * @throws IOException on exception
+	 */
+	@Override
+	public void close() throws IOException{
+		try{
+			lock.lock();
+			closed = true;
+			current = null;
+			freeChunks.clear();
+			if(spillChannel != null){
+				spillChannel.close();
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private Chunk nextChunk() throws IOException{
+		Chunk chunk = freeChunks.poll();
+		if(chunk != null){
+			return chunk;
+		}
+		if(directAllocated + chunkSize <= directCapacity){
+			directAllocated += chunkSize;
+			return new Chunk(ByteBuffer.allocateDirect(chunkSize));
+		}
+		if(spillAllocated + chunkSize <= spillCapacity){
+			if(spillChannel == null){
+				spillChannel = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			}
+			ByteBuffer mapped = spillChannel.map(FileChannel.MapMode.READ_WRITE, spillAllocated, chunkSize);
+			spillAllocated += chunkSize;
+			return new Chunk(mapped);
+		}
+		return null;
+	}
+
+	private void release(Chunk chunk, int length){
+		try{
+			lock.lock();
+			chunk.live -= length;
+			usedBytes -= length;
+			if(chunk.live != 0 || closed){
+				return;
+			}
+			chunk.position = 0;
+			if(chunk != current){
+				freeChunks.add(chunk);
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Handle to a byte sequence within the store
+	 */
+	public static final class Entry{
+
+		private final Chunk chunk;
+		private final int offset;
+		private final int length;
+
+		private Entry(Chunk chunk, int offset, int length){
+			this.chunk = chunk;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		/**
+		 * Returns a read only view of the stored bytes without copying them
+		 * <p>
+		 * The entry has to be kept reachable while the view is in use, for example by using {@link java.lang.ref.Reference#reachabilityFence(Object)}
+		 *
+		 * @return view of the bytes
+		 */
+		public ByteBuffer view(){
+			return chunk.buffer.slice(offset, length).asReadOnlyBuffer();
+		}
+
+		/**
+		 * @return copy of the stored bytes
+		 */
+		public byte[] toByteArray(){
+			byte[] bytes = new byte[length];
+			chunk.buffer.get(offset, bytes);
+			return bytes;
+		}
+
+		public int length(){
+			return length;
+		}
+
+	}
+
+	private static final class Chunk{
+
+		private final ByteBuffer buffer;
+		private int position;
+		private int live;
+
+		private Chunk(ByteBuffer buffer){
+			this.buffer = buffer;
+		}
+
+	}
+
+	// must not reference the entry, otherwise it never becomes unreachable
+	private record Release(OffHeapByteStore store, Chunk chunk, int length) implements Runnable{
+
+		@Override
+		public void run(){
+			store.release(chunk, length);
+		}
+
+	}
+
+}
@@ -24,6 +24,9 @@ import de.netbeacon.xenia.backend.client.objects.cache.LicenseCache;
 import de.netbeacon.xenia.backend.client.objects.cache.UserCache;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendSettings;
+import de.netbeacon.xenia.backend.client.objects.internal.CacheSnapshot;
+import de.netbeacon.xenia.backend.client.objects.internal.GuildBootstrap;
+import de.netbeacon.xenia.backend.client.objects.internal.StartupScheduler;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.BackendException;
 import de.netbeacon.xenia.backend.client.objects.internal.ws.PrimaryWebsocketListener;
 import de.netbeacon.xenia.backend.client.objects.internal.ws.SecondaryWebsocketListener;
@@ -54,6 +57,9 @@ public class XeniaBackendClient implements IShutdown{
 	private final UserCache userCache;
 	private final GuildCache guildCache;
 	private final LicenseCache licenseCache;
+	private final CacheSnapshot cacheSnapshot;
+	private final GuildBootstrap guildBootstrap;
+	private final StartupScheduler startupScheduler;
 	private final Supplier<ShardManager> shardManagerSupplier;
 	private final ScheduledExecutorService keyUpdateTaskExecutor = Executors.newSingleThreadScheduledExecutor();
 	private final AtomicBoolean suspended = new AtomicBoolean(true);
@@ -105,7 +111,13 @@ public class XeniaBackendClient implements IShutdown{
 		this.userCache = new UserCache(backendProcessor);
 		this.guildCache = new GuildCache(backendProcessor);
 		this.licenseCache = new LicenseCache(backendProcessor);
-
+		this.guildBootstrap = new GuildBootstrap(backendProcessor);
+		this.startupScheduler = new StartupScheduler(this);
+		// restore caches of the previous session
+		this.cacheSnapshot = backendSettings.getCacheSnapshotFile() != null ? new CacheSnapshot(this, backendSettings.getCacheSnapshotFile()) : null;
+		if(cacheSnapshot != null){
+			cacheSnapshot.restore();
+		}
 	}
 
 	public BackendSettings getBackendSettings(){
@@ -152,6 +164,14 @@ public class XeniaBackendClient implements IShutdown{
 		return licenseCache;
 	}
 
+	public GuildBootstrap getGuildBootstrap(){
+		return guildBootstrap;
+	}
+
+	public StartupScheduler getStartupScheduler(){
+		return startupScheduler;
+	}
+
 	public PrimaryWebsocketListener getPrimaryWebSocketListener(){
 		return primaryWebSocketListener;
 	}
@@ -202,6 +222,9 @@ public class XeniaBackendClient implements IShutdown{
 		primaryWebSocketListener.onShutdown();
 		secondaryWebsocketListener.onShutdown();
 		backendProcessor.onShutdown();
+		if(cacheSnapshot != null){
+			cacheSnapshot.onShutdown(); // after pending updates have been sent
+		}
 	}
 
 }
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -36,15 +37,16 @@ public class Channel extends APIDataObject<Channel>{
 	private long guildId;
 	private long channelId;
 	private long creationTimestamp;
-	private AccessMode accessMode = new AccessMode(1);
-	private ChannelFlags channelFlags = new ChannelFlags(0);
-	private ChannelSettings channelSettings = new ChannelSettings(0);
+	private AccessMode accessMode = track(new AccessMode(1), Field.ACCESS_MODE);
+	private ChannelFlags channelFlags = track(new ChannelFlags(0), Field.CHANNEL_FLAGS);
+	private ChannelSettings channelSettings = track(new ChannelSettings(0), Field.CHANNEL_SETTINGS);
 	private boolean tmpLoggingActive;
 	private long tmpLoggingChannelId;
-	private D43Z1Settings d43z1Settings = new D43Z1Settings(0);
+	private D43Z1Settings d43z1Settings = track(new D43Z1Settings(0), Field.D43Z1_SETTINGS);
 	private String metaChannelName;
 	private String metaChannelTopic;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Channel(BackendProcessor backendProcessor, long guildId, long channelId){
 		super(backendProcessor);
@@ -75,8 +77,12 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setAccessMode(AccessMode accessMode){
+		setAccessModeAsync(accessMode);
+	}
+
+	public CompletableFuture<Channel> setAccessModeAsync(AccessMode accessMode){
 		lSetAccessMode(accessMode);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public ChannelFlags getChannelFlags(){
@@ -84,8 +90,12 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setChannelFlags(ChannelFlags channelFlags){
+		setChannelFlagsAsync(channelFlags);
+	}
+
+	public CompletableFuture<Channel> setChannelFlagsAsync(ChannelFlags channelFlags){
 		lSetChannelFlags(channelFlags);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public ChannelSettings getChannelSettings(){
@@ -93,8 +103,12 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setChannelSettings(ChannelSettings channelSettings){
+		setChannelSettingsAsync(channelSettings);
+	}
+
+	public CompletableFuture<Channel> setChannelSettingsAsync(ChannelSettings channelSettings){
 		lSetChannelSettings(channelSettings);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public boolean tmpLoggingIsActive(){
@@ -106,33 +120,46 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setTmpLoggingChannelId(long tmpLoggingChannelId){
+		setTmpLoggingChannelIdAsync(tmpLoggingChannelId);
+	}
+
+	public CompletableFuture<Channel> setTmpLoggingChannelIdAsync(long tmpLoggingChannelId){
 		lSetTmpLoggingChannelId(tmpLoggingChannelId);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetAccessMode(AccessMode accessMode){
-		this.accessMode = accessMode;
+		this.accessMode = track(accessMode, Field.ACCESS_MODE);
+		markDirty(Field.ACCESS_MODE);
 	}
 
 	public void lSetChannelFlags(ChannelFlags channelFlags){
-		this.channelFlags = channelFlags;
+		this.channelFlags = track(channelFlags, Field.CHANNEL_FLAGS);
+		markDirty(Field.CHANNEL_FLAGS);
 	}
 
 	public void lSetChannelSettings(ChannelSettings channelSettings){
-		this.channelSettings = channelSettings;
+		this.channelSettings = track(channelSettings, Field.CHANNEL_SETTINGS);
+		markDirty(Field.CHANNEL_SETTINGS);
 	}
 
 	public void setTmpLoggingActive(boolean tmpLoggingActive){
+		setTmpLoggingActiveAsync(tmpLoggingActive);
+	}
+
+	public CompletableFuture<Channel> setTmpLoggingActiveAsync(boolean tmpLoggingActive){
 		lSetTmpLoggingActive(tmpLoggingActive);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetTmpLoggingActive(boolean tmpLoggingActive){
 		this.tmpLoggingActive = tmpLoggingActive;
+		markDirty(Field.TMP_LOGGING_ACTIVE);
 	}
 
 	public void lSetTmpLoggingChannelId(long tmpLoggingChannelId){
 		this.tmpLoggingChannelId = tmpLoggingChannelId;
+		markDirty(Field.TMP_LOGGING_CHANNEL_ID);
 	}
 
 	public D43Z1Settings getD43Z1Settings(){
@@ -140,12 +167,18 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setD43Z1Settings(D43Z1Settings d43Z1Settings){
+		setD43Z1SettingsAsync(d43Z1Settings);
+	}
+
+	public CompletableFuture<Channel> setD43Z1SettingsAsync(D43Z1Settings d43Z1Settings){
 		lSetD43Z1Settings(d43Z1Settings);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetD43Z1Settings(D43Z1Settings d43Z1Settings){
-		this.d43z1Settings = d43Z1Settings;
+		this.d43z1Settings = track(d43Z1Settings, Field.D43Z1_SETTINGS);
+		markDirty(Field.D43Z1_SETTINGS);
+		messageCache.recomputeEffectiveLimit(); // self learning doubles the limit
 	}
 
 	public MessageCache getMessageCache(){
@@ -161,13 +194,18 @@ public class Channel extends APIDataObject<Channel>{
 	}
 
 	public void setMetaData(String channelName, String channelTopic){
+		setMetaDataAsync(channelName, channelTopic);
+	}
+
+	public CompletableFuture<Channel> setMetaDataAsync(String channelName, String channelTopic){
 		lSetMetaData(channelName, channelTopic);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetMetaData(String channelName, String channelTopic){
 		this.metaChannelName = channelName;
 		this.metaChannelTopic = channelTopic != null ? channelTopic : "Unknown topic";
+		markDirty(Field.META);
 	}
 
 	// SECONDARY
@@ -176,6 +214,10 @@ public class Channel extends APIDataObject<Channel>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -199,17 +241,27 @@ public class Channel extends APIDataObject<Channel>{
 		this.guildId = jsonObject.getLong("guildId");
 		this.channelId = jsonObject.getLong("channelId");
 		this.creationTimestamp = jsonObject.getLong("creationTimestamp");
-		this.accessMode = new AccessMode(jsonObject.getInt("accessMode"));
-		this.channelFlags = new ChannelFlags(jsonObject.getInt("channelFlags"));
-		this.channelSettings = new ChannelSettings(jsonObject.getInt("channelSettings"));
+		this.accessMode = track(new AccessMode(jsonObject.getInt("accessMode")), Field.ACCESS_MODE);
+		this.channelFlags = track(new ChannelFlags(jsonObject.getInt("channelFlags")), Field.CHANNEL_FLAGS);
+		this.channelSettings = track(new ChannelSettings(jsonObject.getInt("channelSettings")), Field.CHANNEL_SETTINGS);
 		this.tmpLoggingActive = jsonObject.getBoolean("tmpLoggingActive");
 		this.tmpLoggingChannelId = jsonObject.getLong("tmpLoggingChannelId");
-		this.d43z1Settings = new D43Z1Settings(jsonObject.getInt("d43z1Settings"));
+		this.d43z1Settings = track(new D43Z1Settings(jsonObject.getInt("d43z1Settings")), Field.D43Z1_SETTINGS);
 		JSONObject meta = jsonObject.getJSONObject("meta");
 		this.metaChannelName = meta.getString("name");
 		this.metaChannelTopic = meta.getString("topic");
 	}
 
+	@Override
+	protected JSONObject asNestedSnapshot(){
+		return new JSONObject().put("messages", messageCache.snapshot());
+	}
+
+	@Override
+	protected void restoreNestedSnapshot(JSONObject jsonObject){
+		messageCache.restore(jsonObject.getJSONArray("messages"));
+	}
+
 	public void clear(boolean deletion){
 		messageCache.clear(deletion);
 	}
@@ -339,4 +391,31 @@ public class Channel extends APIDataObject<Channel>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		ACCESS_MODE("accessMode"),
+		CHANNEL_FLAGS("channelFlags"),
+		CHANNEL_SETTINGS("channelSettings"),
+		TMP_LOGGING_ACTIVE("tmpLoggingActive"),
+		TMP_LOGGING_CHANNEL_ID("tmpLoggingChannelId"),
+		D43Z1_SETTINGS("d43z1Settings"),
+		META("meta");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
@@ -25,6 +25,7 @@ import de.netbeacon.xenia.backend.client.objects.cache.misc.NotificationCache;
 import de.netbeacon.xenia.backend.client.objects.cache.misc.TagCache;
 import de.netbeacon.xenia.backend.client.objects.cache.misc.TwitchNotificationCache;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+import de.netbeacon.xenia.backend.client.objects.internal.GuildBootstrap;
 import de.netbeacon.xenia.backend.client.objects.internal.objects.APIDataObject;
 import org.json.JSONObject;
 
@@ -32,6 +33,8 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -45,13 +48,16 @@ public class Guild extends APIDataObject<Guild>{
 	private long guildId;
 	private long creationTimestamp;
 	private String preferredLanguage;
-	private GuildSettings settings = new GuildSettings(8);
-	private D43Z1Mode d43Z1Mode = new D43Z1Mode(2);
+	private GuildSettings settings = track(new GuildSettings(8), Field.SETTINGS);
+	private D43Z1Mode d43Z1Mode = track(new D43Z1Mode(2), Field.D43Z1_MODE);
 	private String prefix;
 	// meta data - initialize with values
 	private String metaGuildName = "unknown_name";
 	private String metaIconUrl = null;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private volatile boolean initialized; // all sub caches have been loaded
+	private volatile boolean restored; // sub caches have been loaded from a snapshot, only the messages need to be reloaded
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Guild(BackendProcessor backendProcessor, long guildId){
 		super(backendProcessor);
@@ -76,12 +82,17 @@ public class Guild extends APIDataObject<Guild>{
 	}
 
 	public void setPreferredLanguage(String preferredLanguage){
+		setPreferredLanguageAsync(preferredLanguage);
+	}
+
+	public CompletableFuture<Guild> setPreferredLanguageAsync(String preferredLanguage){
 		lSetPreferredLanguage(preferredLanguage);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetPreferredLanguage(String preferredLanguage){
 		this.preferredLanguage = preferredLanguage;
+		markDirty(Field.PREFERRED_LANGUAGE);
 	}
 
 	public GuildSettings getSettings(){
@@ -89,12 +100,17 @@ public class Guild extends APIDataObject<Guild>{
 	}
 
 	public void setGuildSettings(GuildSettings settings){
+		setGuildSettingsAsync(settings);
+	}
+
+	public CompletableFuture<Guild> setGuildSettingsAsync(GuildSettings settings){
 		lSetGuildSettings(settings);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetGuildSettings(GuildSettings settings){
-		this.settings = settings;
+		this.settings = track(settings, Field.SETTINGS);
+		markDirty(Field.SETTINGS);
 	}
 
 	public D43Z1Mode getD43Z1Mode(){
@@ -102,12 +118,17 @@ public class Guild extends APIDataObject<Guild>{
 	}
 
 	public void setD43Z1Mode(D43Z1Mode d43Z1Mode){
+		setD43Z1ModeAsync(d43Z1Mode);
+	}
+
+	public CompletableFuture<Guild> setD43Z1ModeAsync(D43Z1Mode d43Z1Mode){
 		lSetD43Z1Mode(d43Z1Mode);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetD43Z1Mode(D43Z1Mode d43Z1Mode){
-		this.d43Z1Mode = d43Z1Mode;
+		this.d43Z1Mode = track(d43Z1Mode, Field.D43Z1_MODE);
+		markDirty(Field.D43Z1_MODE);
 	}
 
 	public String getPrefix(){
@@ -115,12 +136,17 @@ public class Guild extends APIDataObject<Guild>{
 	}
 
 	public void setPrefix(String prefix){
+		setPrefixAsync(prefix);
+	}
+
+	public CompletableFuture<Guild> setPrefixAsync(String prefix){
 		lSetPrefix(prefix);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetPrefix(String prefix){
 		this.prefix = prefix;
+		markDirty(Field.PREFIX);
 	}
 
 	public String getMetaGuildName(){
@@ -134,11 +160,16 @@ public class Guild extends APIDataObject<Guild>{
 	public void lSetMetaData(String guildName, String iconUrl){
 		this.metaGuildName = guildName;
 		this.metaIconUrl = iconUrl;
+		markDirty(Field.META);
 	}
 
 	public void setMetaData(String metaGuildName, String iconUrl){
+		setMetaDataAsync(metaGuildName, iconUrl);
+	}
+
+	public CompletableFuture<Guild> setMetaDataAsync(String metaGuildName, String iconUrl){
 		lSetMetaData(metaGuildName, iconUrl);
-		update().queue();
+		return queueUpdate();
 	}
 
 
@@ -159,26 +190,50 @@ public class Guild extends APIDataObject<Guild>{
 	}
 
 	public void initSync(){
-		List<Channel> channelList = getChannelCache().retrieveAllFromBackend(true).execute();
-		for(Channel channel : channelList){
-			channel.getMessageCache().retrieveAllFromBackend(true, true).execute();
+		try{
+			initialize(null).join();
+		}
+		catch(CompletionException e){
+			if(e.getCause() instanceof RuntimeException runtimeException){
+				throw runtimeException;
+			}
+			throw e;
 		}
-		getRoleCache().retrieveAllFromBackend(true).execute();
-
-		getMiscCaches().getTagCache().retrieveAllFromBackend(true).execute();
-		getMiscCaches().getNotificationCache().retrieveAllFromBackend(true).execute();
-		getMiscCaches().getTwitchNotificationCache().retrieveAllFromBackend(true).execute();
 	}
 
 	public void initAsync(Consumer<Guild> then){
-		getBackendProcessor().getScalingExecutor().execute(() -> {
-			this.initSync();
+		initialize(null).thenAccept(guild -> {
 			if(then != null){
-				then.accept(this);
+				then.accept(guild);
 			}
 		});
 	}
 
+	/**
+	 * Loads all sub caches of this guild through the {@link GuildBootstrap} of the client
+	 *
+	 * @param listener notified about the progress, may be null
+	 *
+	 * @return future completing once all caches have been loaded
+	 */
+	public CompletableFuture<Guild> initialize(Consumer<GuildBootstrap.Progress> listener){
+		if(initialized){
+			return CompletableFuture.completedFuture(this);
+		}
+		var guildBootstrap = getBackendProcessor().getBackendClient().getGuildBootstrap();
+		// restored entries get revalidated on access, so only messages sent while the client was offline need to be loaded
+		var progress = restored ? guildBootstrap.reloadMessages(this, listener) : guildBootstrap.bootstrap(this, listener);
+		return progress.getFuture()
+			.thenApply(guild -> {
+				initialized = true;
+				return guild;
+			});
+	}
+
+	public boolean isInitialized(){
+		return initialized;
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -200,13 +255,36 @@ public class Guild extends APIDataObject<Guild>{
 		this.creationTimestamp = jsonObject.getLong("creationTimestamp");
 		this.preferredLanguage = jsonObject.getString("preferredLanguage");
 		this.prefix = jsonObject.getString("prefix");
-		this.settings = new GuildSettings(jsonObject.getInt("settings"));
-		this.d43Z1Mode = new D43Z1Mode(jsonObject.getInt("d43z1Mode"));
+		this.settings = track(new GuildSettings(jsonObject.getInt("settings")), Field.SETTINGS);
+		this.d43Z1Mode = track(new D43Z1Mode(jsonObject.getInt("d43z1Mode")), Field.D43Z1_MODE);
 		JSONObject meta = jsonObject.getJSONObject("meta");
 		this.metaGuildName = meta.getString("name");
 		this.metaIconUrl = meta.get("iconUrl") != JSONObject.NULL ? meta.getString("iconUrl") : null;
 	}
 
+	@Override
+	protected JSONObject asNestedSnapshot(){
+		return new JSONObject()
+			.put("initialized", initialized || restored)
+			.put("channels", channelCache.snapshot())
+			.put("members", memberCache.snapshot())
+			.put("roles", roleCache.snapshot())
+			.put("tags", miscCaches.getTagCache().snapshot())
+			.put("notifications", miscCaches.getNotificationCache().snapshot())
+			.put("twitchNotifications", miscCaches.getTwitchNotificationCache().snapshot());
+	}
+
+	@Override
+	protected void restoreNestedSnapshot(JSONObject jsonObject){
+		channelCache.restore(jsonObject.getJSONArray("channels"));
+		memberCache.restore(jsonObject.getJSONArray("members"));
+		roleCache.restore(jsonObject.getJSONArray("roles"));
+		miscCaches.getTagCache().restore(jsonObject.getJSONArray("tags"));
+		miscCaches.getNotificationCache().restore(jsonObject.getJSONArray("notifications"));
+		miscCaches.getTwitchNotificationCache().restore(jsonObject.getJSONArray("twitchNotifications"));
+		this.restored = jsonObject.getBoolean("initialized");
+	}
+
 	public void clear(boolean deletion){
 		channelCache.clear(deletion);
 		memberCache.clear(deletion);
@@ -317,4 +395,29 @@ public class Guild extends APIDataObject<Guild>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		PREFERRED_LANGUAGE("preferredLanguage"),
+		PREFIX("prefix"),
+		SETTINGS("settings"),
+		D43Z1_MODE("d43z1Mode"),
+		META("meta");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
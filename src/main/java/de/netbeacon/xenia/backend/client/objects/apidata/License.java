@@ -26,6 +26,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.objects.APIDataObject;
 import org.json.JSONObject;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class License extends APIDataObject<License>{
 
@@ -111,6 +112,10 @@ public class License extends APIDataObject<License>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -24,6 +24,7 @@ import org.json.JSONObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class Member extends APIDataObject<Member>{
@@ -31,13 +32,14 @@ public class Member extends APIDataObject<Member>{
 	private long guildId;
 	private long userId;
 	private long creationTimestamp;
-	private Set<Long> roleIDs = new HashSet<>();
+	private Set<Long> roleIDs = track(new HashSet<>(), Field.ROLES);
 	private long levelPoints;
 	// meta data - initialize with values
 	private String metaNickname = "unknown_nickname";
 	private boolean metaIsAdministrator = false;
 	private boolean metaIsOwner = false;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Member(BackendProcessor backendProcessor, long guildId, long userId){
 		super(backendProcessor);
@@ -63,30 +65,44 @@ public class Member extends APIDataObject<Member>{
 	}
 
 	public void setRoleIds(Set<Long> roles){
+		setRoleIdsAsync(roles);
+	}
+
+	public CompletableFuture<Member> setRoleIdsAsync(Set<Long> roles){
 		lSetRoleIds(roles);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public long getLevelPoints(){ return levelPoints; }
 
 	public void setLevelPoints(long levelPoints){
+		setLevelPointsAsync(levelPoints);
+	}
+
+	public CompletableFuture<Member> setLevelPointsAsync(long levelPoints){
 		lSetLevelPoints(levelPoints);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetLevelPoints(long levelPoints){
 		this.levelPoints = levelPoints;
+		markDirty(Field.LEVEL_POINTS);
 	}
 
 	public void lSetMetaData(String nickname, boolean isAdministrator, boolean isOwner){
 		this.metaNickname = nickname;
 		this.metaIsOwner = isOwner;
 		this.metaIsAdministrator = isAdministrator;
+		markDirty(Field.META);
 	}
 
 	public void setMetaData(String nickname, boolean isAdministrator, boolean isOwner){
+		setMetaDataAsync(nickname, isAdministrator, isOwner);
+	}
+
+	public CompletableFuture<Member> setMetaDataAsync(String nickname, boolean isAdministrator, boolean isOwner){
 		lSetMetaData(nickname, isAdministrator, isOwner);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public String metaNickname(){
@@ -102,7 +118,8 @@ public class Member extends APIDataObject<Member>{
 	}
 
 	public void lSetRoleIds(Set<Long> roles){
-		this.roleIDs = roles;
+		this.roleIDs = track(roles, Field.ROLES);
+		markDirty(Field.ROLES);
 	}
 
 	// SECONDARY
@@ -111,10 +128,18 @@ public class Member extends APIDataObject<Member>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	public User getUser(){
 		return getBackendProcessor().getBackendClient().getUserCache().retrieve(userId, true).execute();
 	}
 
+	public CompletableFuture<User> getUserAsync(){
+		return getBackendProcessor().getBackendClient().getUserCache().retrieveAsync(userId, true);
+	}
+
 	public Set<Role> getRoles(){
 		Guild g = getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 		Set<Role> roles = new HashSet<>();
@@ -159,9 +184,11 @@ public class Member extends APIDataObject<Member>{
 		this.guildId = jsonObject.getLong("guildId");
 		this.userId = jsonObject.getLong("userId");
 		this.creationTimestamp = jsonObject.getLong("creationTimestamp");
+		Set<Long> roles = new HashSet<>();
 		for(int i = 0; i < jsonObject.getJSONArray("roles").length(); i++){
-			this.roleIDs.add(jsonObject.getJSONArray("roles").getLong(i));
+			roles.add(jsonObject.getJSONArray("roles").getLong(i));
 		}
+		this.roleIDs = track(roles, Field.ROLES);
 		this.levelPoints = jsonObject.getLong("levelPoints");
 		JSONObject meta = jsonObject.getJSONObject("meta");
 		this.metaNickname = meta.getString("nickname");
@@ -174,4 +201,27 @@ public class Member extends APIDataObject<Member>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		ROLES("roles"),
+		LEVEL_POINTS("levelPoints"),
+		META("meta");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
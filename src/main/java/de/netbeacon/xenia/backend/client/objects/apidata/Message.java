@@ -18,16 +18,29 @@ package de.netbeacon.xenia.backend.client.objects.apidata;
 
 import de.netbeacon.utils.crypt.Base64;
 import de.netbeacon.utils.crypt.Crypt;
+import de.netbeacon.utils.crypt.KeyedCrypt;
 import de.netbeacon.utils.json.serial.JSONSerializationException;
+import de.netbeacon.utils.memory.OffHeapByteStore;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendSettings;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.BackendException;
 import de.netbeacon.xenia.backend.client.objects.internal.objects.APIDataObject;
+import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 public class Message extends APIDataObject<Message>{
@@ -39,12 +52,24 @@ public class Message extends APIDataObject<Message>{
 	private long userId;
 	private long creationTimestamp;
 	private long creationTimestampDiscord;
-	private String messageSalt;
-	private String messageContent;
-	private String oldMessageSalt;
-	private String oldMessageContent;
-	private List<String> attachments = new ArrayList<>();
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	// salt, body and version are published together so that readers never combine parts of different versions
+	private volatile Content content = new Content(0, null, null, null, null);
+	private List<String> attachments = track(new ArrayList<>(), Field.MESSAGE_ATTACHMENTS);
+	// memoized plaintext, only valid as long as the content version matches
+	private final ReentrantLock contentLock = new ReentrantLock(); // serializes writers of the content
+	private volatile Plaintext plaintext;
+	private volatile Plaintext oldPlaintext;
+	private static final String DIGEST_TAG = "sha256:"; // never part of base64 encoded content
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	});
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Message(BackendProcessor backendProcessor, long guildId, long channelId, long messageId){
 		super(backendProcessor);
@@ -55,17 +80,28 @@ public class Message extends APIDataObject<Message>{
 	}
 
 	public Message lSetInitialData(long userId, long creationTimestamp, String messageContent, List<String> attachmentUrls, String cryptKey){
+		Encrypted encrypted;
 		try{
-			byte[] salt = Crypt.genSalt();
-			this.messageSalt = new String(Base64.encode(salt));
-			this.messageContent = new String(Base64.encode(Crypt.encrypt(messageContent.getBytes(), cryptKey, salt)));
-			this.attachments.addAll(attachmentUrls);
+			encrypted = encryptContent(messageContent, cryptKey);
 		}
 		catch(Exception e){
 			throw new BackendException(-5, "Failed To Encrypt Content");
 		}
+		try{
+			contentLock.lock();
+			Content current = this.content;
+			Content next = new Content(current.version() + 1, encrypted.salt(), encrypted.body(), current.oldSalt(), current.oldBody());
+			this.content = next;
+			this.plaintext = retain(next.version(), cryptKey, messageContent);
+			this.oldPlaintext = null;
+		}
+		finally{
+			contentLock.unlock();
+		}
+		this.attachments.addAll(attachmentUrls);
 		this.userId = userId;
 		this.creationTimestampDiscord = creationTimestamp;
+		markDirty(Field.USER_ID, Field.CREATION_TIMESTAMP_DISCORD, Field.MESSAGE_ATTACHMENTS, Field.MESSAGE_SALT, Field.MESSAGE_CONTENT);
 		return this;
 	}
 
@@ -94,11 +130,18 @@ public class Message extends APIDataObject<Message>{
 	}
 
 	public String getOldMessageContent(String cryptKey){
-		if(oldMessageSalt == null || oldMessageSalt.isBlank() || oldMessageContent == null || oldMessageContent.isBlank()){
+		Content current = this.content;
+		if(current.oldSalt() == null || current.oldSalt().isBlank() || current.oldBody() == null || current.oldBody().isEmpty()){
 			return getMessageContent(cryptKey);
 		}
+		String memoized = Plaintext.get(oldPlaintext, current.version(), cryptKey);
+		if(memoized != null){
+			return memoized;
+		}
 		try{
-			return new String(Crypt.decrypt(Base64.decode(this.oldMessageContent.getBytes()), cryptKey, Base64.decode(this.oldMessageSalt.getBytes())));
+			String content = decryptContent(current.oldBody(), current.oldSalt(), cryptKey);
+			this.oldPlaintext = retain(current.version(), cryptKey, content);
+			return content;
 		}
 		catch(Exception e){
 			throw new BackendException(-5, "Failed Decrypt Content");
@@ -106,8 +149,15 @@ public class Message extends APIDataObject<Message>{
 	}
 
 	public String getMessageContent(String cryptKey){
+		Content current = this.content;
+		String memoized = Plaintext.get(plaintext, current.version(), cryptKey);
+		if(memoized != null){
+			return memoized;
+		}
 		try{
-			return new String(Crypt.decrypt(Base64.decode(this.messageContent.getBytes()), cryptKey, Base64.decode(this.messageSalt.getBytes())));
+			String content = decryptContent(current.body(), current.salt(), cryptKey);
+			this.plaintext = retain(current.version(), cryptKey, content);
+			return content;
 		}
 		catch(Exception e){
 			throw new BackendException(-5, "Failed Decrypt Content");
@@ -115,45 +165,119 @@ public class Message extends APIDataObject<Message>{
 	}
 
 	public void setMessageContent(String content, String cryptKey){
+		setMessageContentAsync(content, cryptKey);
+	}
+
+	public CompletableFuture<Message> setMessageContentAsync(String content, String cryptKey){
 		lSetMessageContent(content, cryptKey);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetMessageContent(String content, String cryptKey){
-		String tmpS = this.messageSalt;
-		String tmpC = this.messageContent;
+		Encrypted encrypted;
 		try{
-			byte[] salt = Crypt.genSalt();
-			this.messageSalt = new String(Base64.encode(salt));
-			this.messageContent = new String(Base64.encode(Crypt.encrypt(content.getBytes(), cryptKey, salt)));
+			encrypted = encryptContent(content, cryptKey);
 		}
 		catch(Exception e){
 			throw new BackendException(-5, "Failed To Encrypt Content");
 		}
-		this.oldMessageSalt = tmpS;
-		this.oldMessageContent = tmpC;
+		try{
+			contentLock.lock();
+			Content current = this.content;
+			Content next = new Content(current.version() + 1, encrypted.salt(), encrypted.body(), current.salt(), current.body());
+			this.content = next;
+			// the previous plaintext becomes the old one
+			String previous = Plaintext.get(plaintext, current.version(), cryptKey);
+			this.oldPlaintext = previous != null ? retain(next.version(), cryptKey, previous) : null;
+			this.plaintext = retain(next.version(), cryptKey, content);
+		}
+		finally{
+			contentLock.unlock();
+		}
+		markDirty(Field.MESSAGE_SALT, Field.MESSAGE_CONTENT);
 	}
 
 	public List<String> getAttachmentUrls(){
 		return attachments;
 	}
 
+	private Encrypted encryptContent(String content, String cryptKey) throws InvalidCipherTextException{
+		byte[] salt = Crypt.genSalt();
+		if(getBackendProcessor().getBackendSettings().getMessageCryptMode() == BackendSettings.MessageCryptMode.KEYED){
+			return new Encrypted(KeyedCrypt.VERSION_TAG + new String(Base64.encode(salt)), Body.of(KeyedCrypt.forPassword(cryptKey).encrypt(content.getBytes(), salt), getMessageBodyStore()));
+		}
+		return new Encrypted(new String(Base64.encode(salt)), Body.of(Crypt.encrypt(content.getBytes(), cryptKey, salt), getMessageBodyStore()));
+	}
+
+	private OffHeapByteStore getMessageBodyStore(){
+		return getBackendProcessor().getBackendSettings().getMessageBodyStore();
+	}
+
+	private Plaintext retain(int version, String cryptKey, String content){
+		Reference<String> reference = switch(getBackendProcessor().getBackendSettings().getMessageContentRetention()){
+			case SOFT -> new SoftReference<>(content);
+			case WEAK -> new WeakReference<>(content);
+			case NONE -> null;
+		};
+		return reference != null ? new Plaintext(version, cryptKey, reference) : null;
+	}
+
+	private static String decryptContent(Body content, String salt, String cryptKey) throws InvalidCipherTextException{
+		if(content.entry == null){
+			return decryptContent(Base64.decode(content.encoded.getBytes()), salt, cryptKey);
+		}
+		try{
+			// the ciphertext is passed to the cipher straight from the store
+			ByteBuffer buffer = content.entry.view();
+			if(salt.startsWith(KeyedCrypt.VERSION_TAG)){
+				byte[] saltBytes = Base64.decode(salt.substring(KeyedCrypt.VERSION_TAG.length()).getBytes());
+				return new String(KeyedCrypt.forPassword(cryptKey).decrypt(buffer, saltBytes));
+			}
+			return new String(Crypt.decrypt(buffer, cryptKey, Base64.decode(salt.getBytes())));
+		}
+		finally{
+			Reference.reachabilityFence(content.entry);
+		}
+	}
+
+	private static String decryptContent(byte[] content, String salt, String cryptKey) throws InvalidCipherTextException{
+		// the salt of content encrypted with a derived key is tagged, untagged salts belong to the legacy format
+		if(salt.startsWith(KeyedCrypt.VERSION_TAG)){
+			byte[] saltBytes = Base64.decode(salt.substring(KeyedCrypt.VERSION_TAG.length()).getBytes());
+			return new String(KeyedCrypt.forPassword(cryptKey).decrypt(content, saltBytes));
+		}
+		return new String(Crypt.decrypt(content, cryptKey, Base64.decode(salt.getBytes())));
+	}
+
 	// SECONDARY
 
 	public Guild getGuild(){
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	public Channel getChannel(){
 		return getGuild().getChannelCache().retrieve(channelId, true).execute();
 	}
 
+	public CompletableFuture<Channel> getChannelAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getChannelCache().retrieveAsync(channelId, true));
+	}
+
 	public Member getMember(){
 		return getGuild().getMemberCache().retrieve(userId, true).execute();
 	}
 
+	public CompletableFuture<Member> getMemberAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getMemberCache().retrieveAsync(userId, true));
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
+		Content current = this.content;
 		return new JSONObject()
 			.put("guildId", guildId)
 			.put("channelId", channelId)
@@ -162,8 +286,8 @@ public class Message extends APIDataObject<Message>{
 			.put("creationTimestamp", creationTimestamp)
 			.put("creationTimestampDiscord", creationTimestampDiscord)
 			.put("messageAttachments", attachments)
-			.put("messageSalt", messageSalt)
-			.put("messageContent", messageContent);
+			.put("messageSalt", current.salt())
+			.put("messageContent", current.body() != null ? current.body().encoded() : null);
 	}
 
 	@Override
@@ -174,12 +298,75 @@ public class Message extends APIDataObject<Message>{
 		this.userId = jsonObject.getLong("userId");
 		this.creationTimestamp = jsonObject.getLong("creationTimestamp");
 		this.creationTimestampDiscord = jsonObject.getLong("creationTimestampDiscord");
-		this.attachments = new ArrayList<>();
+		List<String> attachments = new ArrayList<>();
 		for(int i = 0; i < jsonObject.getJSONArray("messageAttachments").length(); i++){
-			this.attachments.add(jsonObject.getJSONArray("messageAttachments").getString(i));
+			attachments.add(jsonObject.getJSONArray("messageAttachments").getString(i));
+		}
+		this.attachments = track(attachments, Field.MESSAGE_ATTACHMENTS);
+		String encoded = jsonObject.getString("messageContent");
+		if(encoded.startsWith(DIGEST_TAG)){
+			revertContent(jsonObject.getString("messageSalt"));
+			return;
+		}
+		Body body = Body.ofEncoded(encoded, getMessageBodyStore());
+		try{
+			contentLock.lock();
+			Content current = this.content;
+			this.content = new Content(current.version() + 1, jsonObject.getString("messageSalt"), body, current.oldSalt(), current.oldBody());
+			this.plaintext = null;
+			this.oldPlaintext = null;
+		}
+		finally{
+			contentLock.unlock();
+		}
+	}
+
+	/**
+	 * Reverts to the content of the shadow copy, which only contains a digest of it
+	 *
+	 * @param salt of the content to revert to
+	 */
+	private void revertContent(String salt){
+		try{
+			contentLock.lock();
+			Content current = this.content;
+			// salts are unique per encryption, so they tell which of the known contents the shadow copy belongs to
+			if(salt.equals(current.salt()) || !salt.equals(current.oldSalt())){
+				return;
+			}
+			this.content = new Content(current.version() + 1, current.oldSalt(), current.oldBody(), null, null);
+			this.plaintext = null;
+			this.oldPlaintext = null;
+		}
+		finally{
+			contentLock.unlock();
+		}
+	}
+
+	@Override
+	protected JSONObject asShadowCopy(JSONObject jsonObject){
+		// deltas only need to know whether the content changed, so a digest is kept instead of the content itself
+		String encoded = jsonObject.optString("messageContent", null);
+		if(encoded == null || encoded.startsWith(DIGEST_TAG)){
+			return jsonObject;
+		}
+		JSONObject shadowCopy = new JSONObject(jsonObject, JSONObject.getNames(jsonObject));
+		shadowCopy.put("messageContent", DIGEST_TAG + new String(Base64.encode(SHA_256.get().digest(Base64.decode(encoded.getBytes())))));
+		return shadowCopy;
+	}
+
+	@Override
+	public long estimateWeight(){
+		Content current = this.content;
+		long weight = 256 + 64L * attachments.size();
+		if(current.body() != null){
+			weight += current.body().heapSize();
 		}
-		this.messageSalt = jsonObject.getString("messageSalt");
-		this.messageContent = jsonObject.getString("messageContent");
+		if(current.oldBody() != null){
+			weight += current.oldBody().heapSize();
+		}
+		weight += 320 + 64L * attachments.size(); // shadow copy, holding a digest of the content
+		return weight;
 	}
 
 	@Override
@@ -187,4 +374,117 @@ public class Message extends APIDataObject<Message>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		USER_ID("userId"),
+		CREATION_TIMESTAMP_DISCORD("creationTimestampDiscord"),
+		MESSAGE_ATTACHMENTS("messageAttachments"),
+		MESSAGE_SALT("messageSalt"),
+		MESSAGE_CONTENT("messageContent");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
+	private record Encrypted(String salt, Body body){}
+
+	/**
+	 * Encrypted content and the one it replaced, swapped as a whole
+	 */
+	private record Content(int version, String salt, Body body, String oldSalt, Body oldBody){}
+
+	/**
+	 * Encrypted content, kept either within the message body store or as base64 string on the heap
+	 */
+	private static final class Body{
+
+		private final OffHeapByteStore.Entry entry;
+		private final String encoded;
+
+		private Body(OffHeapByteStore.Entry entry, String encoded){
+			this.entry = entry;
+			this.encoded = encoded;
+		}
+
+		private static Body of(byte[] content, OffHeapByteStore store){
+			OffHeapByteStore.Entry entry = store(content, store);
+			return entry != null ? new Body(entry, null) : new Body(null, new String(Base64.encode(content)));
+		}
+
+		private static Body ofEncoded(String encoded, OffHeapByteStore store){
+			if(store == null || encoded.isEmpty()){
+				return new Body(null, encoded);
+			}
+			OffHeapByteStore.Entry entry = store(Base64.decode(encoded.getBytes()), store);
+			return entry != null ? new Body(entry, null) : new Body(null, encoded);
+		}
+
+		private static OffHeapByteStore.Entry store(byte[] content, OffHeapByteStore store){
+			if(store == null){
+				return null;
+			}
+			try{
+				return store.put(content);
+			}
+			catch(IOException e){
+				return null; // keep it on the heap
+			}
+		}
+
+		private String encoded(){
+			if(entry == null){
+				return encoded;
+			}
+			try{
+				return new String(Base64.encode(entry.view()));
+			}
+			finally{
+				Reference.reachabilityFence(entry);
+			}
+		}
+
+		private boolean isEmpty(){
+			return entry != null ? entry.length() == 0 : encoded.isBlank();
+		}
+
+		private long heapSize(){
+			return entry != null ? 32 : 56 + encoded.length(); // base64 is stored with one byte per char
+		}
+
+	}
+
+	private static class Plaintext{
+
+		private final int version;
+		private final String cryptKey;
+		private final Reference<String> content;
+
+		private Plaintext(int version, String cryptKey, Reference<String> content){
+			this.version = version;
+			this.cryptKey = cryptKey;
+			this.content = content;
+		}
+
+		private static String get(Plaintext plaintext, int version, String cryptKey){
+			if(plaintext == null || plaintext.version != version || !plaintext.cryptKey.equals(cryptKey)){
+				return null;
+			}
+			return plaintext.content.get();
+		}
+
+	}
+
 }
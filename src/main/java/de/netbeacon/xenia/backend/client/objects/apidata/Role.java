@@ -25,6 +25,7 @@ import org.json.JSONObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class Role extends APIDataObject<Role>{
@@ -34,13 +35,14 @@ public class Role extends APIDataObject<Role>{
 
 	private String roleName;
 	private Permissions permissions;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Role(BackendProcessor backendProcessor, long guildId, long roleId){
 		super(backendProcessor);
 		this.guildId = guildId;
 		this.roleId = roleId;
-		this.permissions = new Permissions(this, 1283);
+		this.permissions = track(new Permissions(this, 1283), Field.ROLE_PERMISSIONS);
 		setBackendPath("data", "guilds", (Supplier<Long>) this::getGuildId, "roles", (Supplier<Long>) this::getId);
 	}
 
@@ -57,12 +59,17 @@ public class Role extends APIDataObject<Role>{
 	}
 
 	public void setRoleName(String name){
+		setRoleNameAsync(name);
+	}
+
+	public CompletableFuture<Role> setRoleNameAsync(String name){
 		lSetRoleName(name);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetRoleName(String name){
 		this.roleName = name;
+		markDirty(Field.ROLE_NAME);
 	}
 
 	public Permissions getPermissions(){
@@ -75,6 +82,10 @@ public class Role extends APIDataObject<Role>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -89,7 +100,7 @@ public class Role extends APIDataObject<Role>{
 		this.guildId = jsonObject.getLong("guildId");
 		this.roleId = jsonObject.getLong("roleId");
 		this.roleName = jsonObject.getString("roleName");
-		this.permissions = new Permissions(this, jsonObject.getLong("rolePermissions"));
+		this.permissions = track(new Permissions(this, jsonObject.getLong("rolePermissions")), Field.ROLE_PERMISSIONS);
 	}
 
 	public static class Permissions extends LongBitFlags{
@@ -101,14 +112,22 @@ public class Role extends APIDataObject<Role>{
 			this.role = role;
 		}
 
-		public synchronized void enable(Bit... bits){
+		public void enable(Bit... bits){
+			enableAsync(bits);
+		}
+
+		public synchronized CompletableFuture<Role> enableAsync(Bit... bits){
 			set(bits);
-			role.update().queue();
+			return role.queueUpdate();
+		}
+
+		public void disable(Bit... bits){
+			disableAsync(bits);
 		}
 
-		public synchronized void disable(Bit... bits){
+		public synchronized CompletableFuture<Role> disableAsync(Bit... bits){
 			unset(bits);
-			role.update().queue();
+			return role.queueUpdate();
 		}
 
 		public boolean hasPermission(Bit bit){
@@ -180,4 +199,26 @@ public class Role extends APIDataObject<Role>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		ROLE_NAME("roleName"),
+		ROLE_PERMISSIONS("rolePermissions");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
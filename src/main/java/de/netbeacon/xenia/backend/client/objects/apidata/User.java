@@ -24,6 +24,7 @@ import org.json.JSONObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class User extends APIDataObject<User>{
@@ -37,7 +38,8 @@ public class User extends APIDataObject<User>{
 	// meta data - initialize with values
 	private String metaUsername = "unknown_username";
 	private String metaIconUrl = null;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.GET_OR_CREATE, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public User(BackendProcessor backendProcessor, long userId){
 		super(backendProcessor);
@@ -58,8 +60,12 @@ public class User extends APIDataObject<User>{
 	}
 
 	public void setInternalRole(String internalRole){
+		setInternalRoleAsync(internalRole);
+	}
+
+	public CompletableFuture<User> setInternalRoleAsync(String internalRole){
 		lSetInternalRole(internalRole);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public String getPreferredLanguage(){
@@ -67,18 +73,27 @@ public class User extends APIDataObject<User>{
 	}
 
 	public void setPreferredLanguage(String language){
+		setPreferredLanguageAsync(language);
+	}
+
+	public CompletableFuture<User> setPreferredLanguageAsync(String language){
 		lSetPreferredLanguage(language);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetMetaData(String username, String iconUrl){
 		this.metaUsername = username;
 		this.metaIconUrl = iconUrl;
+		markDirty(Field.META);
 	}
 
 	public void setMetaData(String username, String iconUrl){
+		setMetaDataAsync(username, iconUrl);
+	}
+
+	public CompletableFuture<User> setMetaDataAsync(String username, String iconUrl){
 		lSetMetaData(username, iconUrl);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public String getMetaUsername(){
@@ -91,10 +106,12 @@ public class User extends APIDataObject<User>{
 
 	public void lSetInternalRole(String internalRole){
 		this.internalRole = internalRole;
+		markDirty(Field.INTERNAL_ROLE);
 	}
 
 	public void lSetPreferredLanguage(String language){
 		this.preferredLanguage = language;
+		markDirty(Field.PREFERRED_LANGUAGE);
 	}
 
 	public long getTrustFactor(){
@@ -102,12 +119,17 @@ public class User extends APIDataObject<User>{
 	}
 
 	public void setTrustFactor(long trustFactor){
+		setTrustFactorAsync(trustFactor);
+	}
+
+	public CompletableFuture<User> setTrustFactorAsync(long trustFactor){
 		lSetTrustFactor(trustFactor);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetTrustFactor(long trustFactor){
 		this.trustFactor = trustFactor;
+		markDirty(Field.TRUST_FACTOR);
 	}
 
 	@Override
@@ -141,4 +163,28 @@ public class User extends APIDataObject<User>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		INTERNAL_ROLE("internalRole"),
+		PREFERRED_LANGUAGE("preferredLanguage"),
+		TRUST_FACTOR("trustFactor"),
+		META("meta");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
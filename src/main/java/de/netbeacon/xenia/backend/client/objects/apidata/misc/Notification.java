@@ -27,6 +27,7 @@ import org.json.JSONObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class Notification extends APIDataObject<Notification>{
@@ -38,7 +39,8 @@ public class Notification extends APIDataObject<Notification>{
 	private long userId;
 	private long notificationTarget;
 	private String notificationMessage;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Notification(BackendProcessor backendProcessor, long guildId, long notificationId){
 		super(backendProcessor);
@@ -52,6 +54,7 @@ public class Notification extends APIDataObject<Notification>{
 		this.userId = userId;
 		this.notificationTarget = notificationTarget;
 		this.notificationMessage = notificationMessage;
+		markDirty(Field.CHANNEL_ID, Field.USER_ID, Field.NOTIFICATION_TARGET, Field.NOTIFICATION_MESSAGE);
 		return this;
 	}
 
@@ -80,8 +83,12 @@ public class Notification extends APIDataObject<Notification>{
 	}
 
 	public void setNotificationTarget(long notificationTarget){
+		setNotificationTargetAsync(notificationTarget);
+	}
+
+	public CompletableFuture<Notification> setNotificationTargetAsync(long notificationTarget){
 		lSetNotificationTarget(notificationTarget);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public String getNotificationMessage(){
@@ -89,16 +96,22 @@ public class Notification extends APIDataObject<Notification>{
 	}
 
 	public void setNotificationMessage(String notificationMessage){
+		setNotificationMessageAsync(notificationMessage);
+	}
+
+	public CompletableFuture<Notification> setNotificationMessageAsync(String notificationMessage){
 		lSetNotificationMessage(notificationMessage);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetNotificationTarget(long notificationTarget){
 		this.notificationTarget = notificationTarget;
+		markDirty(Field.NOTIFICATION_TARGET);
 	}
 
 	public void lSetNotificationMessage(String notificationMessage){
 		this.notificationMessage = notificationMessage;
+		markDirty(Field.NOTIFICATION_MESSAGE);
 	}
 
 	// SECONDARY
@@ -107,14 +120,26 @@ public class Notification extends APIDataObject<Notification>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	public Channel getChannel(){
 		return getGuild().getChannelCache().retrieve(channelId, true).execute();
 	}
 
+	public CompletableFuture<Channel> getChannelAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getChannelCache().retrieveAsync(channelId, true));
+	}
+
 	public Member getMember(){
 		return getGuild().getMemberCache().retrieve(userId, true).execute();
 	}
 
+	public CompletableFuture<Member> getMemberAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getMemberCache().retrieveAsync(userId, true));
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -143,4 +168,28 @@ public class Notification extends APIDataObject<Notification>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		CHANNEL_ID("channelId"),
+		USER_ID("userId"),
+		NOTIFICATION_TARGET("notificationTarget"),
+		NOTIFICATION_MESSAGE("notificationMessage");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
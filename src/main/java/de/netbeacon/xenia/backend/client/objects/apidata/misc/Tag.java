@@ -29,6 +29,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class Tag extends APIDataObject<Tag>{
@@ -38,7 +39,8 @@ public class Tag extends APIDataObject<Tag>{
 	private long creationTimestamp;
 	private long userId;
 	private String tagContent;
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public Tag(BackendProcessor backendProcessor, long guildId, String tagName){
 		super(backendProcessor);
@@ -50,6 +52,7 @@ public class Tag extends APIDataObject<Tag>{
 	public Tag lSetInitialData(long userId, String tagContent){
 		this.userId = userId;
 		this.tagContent = tagContent;
+		markDirty(Field.USER_ID, Field.TAG_CONTENT);
 		return this;
 	}
 
@@ -74,12 +77,17 @@ public class Tag extends APIDataObject<Tag>{
 	}
 
 	public void setTagContent(String tagContent) throws BackendException{
+		setTagContentAsync(tagContent);
+	}
+
+	public CompletableFuture<Tag> setTagContentAsync(String tagContent) throws BackendException{
 		lSetTagContent(tagContent);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetTagContent(String tagContent) throws BackendException{
 		this.tagContent = tagContent;
+		markDirty(Field.TAG_CONTENT);
 	}
 
 	// SECONDARY
@@ -88,10 +96,18 @@ public class Tag extends APIDataObject<Tag>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	public Member getMember(){
 		return getGuild().getMemberCache().retrieve(userId, true).execute();
 	}
 
+	public CompletableFuture<Member> getMemberAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getMemberCache().retrieveAsync(userId, true));
+	}
+
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
 		return new JSONObject()
@@ -116,4 +132,26 @@ public class Tag extends APIDataObject<Tag>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		USER_ID("userId"),
+		TAG_CONTENT("tagContent");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import org.json.JSONObject;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 public class TwitchNotification extends APIDataObject<TwitchNotification>{
@@ -37,7 +38,8 @@ public class TwitchNotification extends APIDataObject<TwitchNotification>{
 	private Long twitchChannelId;
 	private String twitchChannelName;
 	private String notificationMessage = "$username$ is now live on twitch playing $game$";
-	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.DELETE));
+	private static final Set<FeatureSet.Values> FEATURE_SET = new HashSet<>(List.of(FeatureSet.Values.GET, FeatureSet.Values.CREATE, FeatureSet.Values.UPDATE, FeatureSet.Values.PATCH, FeatureSet.Values.DELETE));
+	private static final DataField[] DATA_FIELDS = Field.values();
 
 	public TwitchNotification(BackendProcessor backendProcessor, long guildId, long twitchNotificationId){
 		super(backendProcessor);
@@ -49,6 +51,7 @@ public class TwitchNotification extends APIDataObject<TwitchNotification>{
 	public TwitchNotification lSetInitialData(String channelName, long channelId){
 		this.twitchChannelName = channelName;
 		this.channelId = channelId;
+		markDirty(Field.TWITCH_CHANNEL_NAME, Field.CHANNEL_ID);
 		return this;
 	}
 
@@ -81,12 +84,17 @@ public class TwitchNotification extends APIDataObject<TwitchNotification>{
 	}
 
 	public void setNotificationMessage(String message){
+		setNotificationMessageAsync(message);
+	}
+
+	public CompletableFuture<TwitchNotification> setNotificationMessageAsync(String message){
 		lSetNotificationMessage(message);
-		update().queue();
+		return queueUpdate();
 	}
 
 	public void lSetNotificationMessage(String message){
 		this.notificationMessage = message;
+		markDirty(Field.NOTIFICATION_MESSAGE);
 	}
 
 	// SECONDARY
@@ -95,10 +103,18 @@ public class TwitchNotification extends APIDataObject<TwitchNotification>{
 		return getBackendProcessor().getBackendClient().getGuildCache().retrieve(guildId, true).execute();
 	}
 
+	public CompletableFuture<Guild> getGuildAsync(){
+		return getBackendProcessor().getBackendClient().getGuildCache().retrieveAsync(guildId, true);
+	}
+
 	public Channel getChannel(){
 		return getGuild().getChannelCache().retrieve(channelId, true).execute();
 	}
 
+	public CompletableFuture<Channel> getChannelAsync(){
+		return getGuildAsync().thenCompose(guild -> guild.getChannelCache().retrieveAsync(channelId, true));
+	}
+
 
 	@Override
 	public JSONObject asJSON() throws JSONSerializationException{
@@ -128,4 +144,27 @@ public class TwitchNotification extends APIDataObject<TwitchNotification>{
 		return FEATURE_SET;
 	}
 
+	@Override
+	protected DataField[] getDataFields(){
+		return DATA_FIELDS;
+	}
+
+	public enum Field implements DataField{
+		CHANNEL_ID("channelId"),
+		TWITCH_CHANNEL_NAME("twitchChannelName"),
+		NOTIFICATION_MESSAGE("notificationMessage");
+
+		private final String key;
+
+		Field(String key){
+			this.key = key;
+		}
+
+		@Override
+		public String getKey(){
+			return key;
+		}
+
+	}
+
 }
@@ -24,7 +24,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheExcept
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -36,15 +36,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class ChannelCache extends Cache<Long, Channel>{
+public class ChannelCache extends LongCache<Channel>{
 
 	private final long guildId;
 
 	public ChannelCache(BackendProcessor backendProcessor, long guildId){
-		super(backendProcessor);
+		super(backendProcessor, Channel::getId);
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected Channel newObject(Long id){
+		return new Channel(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<Channel> retrieve(Long id, boolean cache){
@@ -182,7 +187,7 @@ public class ChannelCache extends Cache<Long, Channel>{
 
 	@Override
 	public void clear(boolean deletion){
-		getDataMap().forEach((k, v) -> v.clear(deletion));
+		getAllAsList().forEach(v -> v.clear(deletion));
 		super.clear(deletion);
 	}
 
@@ -22,17 +22,22 @@ import de.netbeacon.xenia.backend.client.objects.apidata.Guild;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 
 import javax.annotation.CheckReturnValue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class GuildCache extends Cache<Long, Guild>{
+public class GuildCache extends LongCache<Guild>{
 
 	public GuildCache(BackendProcessor backendProcessor){
-		super(backendProcessor);
+		super(backendProcessor, Guild::getId);
+	}
+
+	@Override
+	protected Guild newObject(Long id){
+		return new Guild(getBackendProcessor(), id);
 	}
 
 	@CheckReturnValue
@@ -140,7 +145,7 @@ public class GuildCache extends Cache<Long, Guild>{
 
 	@Override
 	public void clear(boolean deletion){
-		getDataMap().forEach((k, v) -> v.clear(deletion)); // as the guild also contains caches
+		getAllAsList().forEach(v -> v.clear(deletion)); // as the guild also contains caches
 		super.clear(deletion);
 	}
 
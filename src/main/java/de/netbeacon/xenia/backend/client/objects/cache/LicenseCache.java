@@ -23,17 +23,22 @@ import de.netbeacon.xenia.backend.client.objects.apidata.License;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 
 import javax.annotation.CheckReturnValue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class LicenseCache extends Cache<Long, License>{
+public class LicenseCache extends LongCache<License>{
 
 	public LicenseCache(BackendProcessor backendProcessor){
-		super(backendProcessor);
+		super(backendProcessor, License::getGuildId);
+	}
+
+	@Override
+	protected License newObject(Long id){
+		return new License(getBackendProcessor(), id);
 	}
 
 	@CheckReturnValue
@@ -24,7 +24,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheExcept
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -36,15 +36,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class MemberCache extends Cache<Long, Member>{
+public class MemberCache extends LongCache<Member>{
 
 	private final long guildId;
 
 	public MemberCache(BackendProcessor backendProcessor, long guildId){
-		super(backendProcessor);
+		super(backendProcessor, Member::getId);
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected Member newObject(Long id){
+		return new Member(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<Member> retrieve(Long id, boolean cache){
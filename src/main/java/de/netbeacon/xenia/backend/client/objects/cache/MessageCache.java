@@ -20,13 +20,16 @@ import de.netbeacon.utils.concurrency.action.ExecutionAction;
 import de.netbeacon.utils.concurrency.action.ExecutionException;
 import de.netbeacon.utils.concurrency.action.imp.SupplierExecutionAction;
 import de.netbeacon.xenia.backend.client.objects.apidata.Channel;
+import de.netbeacon.xenia.backend.client.objects.apidata.Guild;
+import de.netbeacon.xenia.backend.client.objects.apidata.License;
 import de.netbeacon.xenia.backend.client.objects.apidata.Message;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.RingCacheStorage;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -34,20 +37,39 @@ import javax.annotation.CheckReturnValue;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-public class MessageCache extends Cache<Long, Message>{
+public class MessageCache extends LongCache<Message>{
 
 	private final long guildId;
 	private final long channelId;
 	private final HashMap<String, Message> lastMap = new HashMap<>();
+	private final MessageIngestionQueue ingestionQueue;
+	private final RingCacheStorage<Message> ringStorage;
+	private volatile int effectiveLimit = -1; // computed on demand, kept while a new one is computed
+	private final AtomicInteger effectiveLimitVersion = new AtomicInteger();
 
 	public MessageCache(BackendProcessor backendProcessor, long guildId, long channelId){
-		super(backendProcessor);
+		this(backendProcessor, guildId, channelId, new RingCacheStorage<>(Message::getId, 1)); // sized to the license limit on the first insert
+	}
+
+	private MessageCache(BackendProcessor backendProcessor, long guildId, long channelId, RingCacheStorage<Message> ringStorage){
+		super(backendProcessor, ringStorage);
+		this.ringStorage = ringStorage;
 		this.guildId = guildId;
 		this.channelId = channelId;
+		this.ingestionQueue = new MessageIngestionQueue(backendProcessor, guildId, channelId);
+	}
+
+	@Override
+	protected Message newObject(Long id){
+		return new Message(getBackendProcessor(), guildId, channelId, id);
 	}
 
 	@CheckReturnValue
@@ -115,7 +137,7 @@ public class MessageCache extends Cache<Long, Message>{
 					}
 					Message message = new Message(getBackendProcessor(), guildId, channelId, id)
 						.lSetInitialData(userId, creationTime, messageContent, attachmentUrls, getBackendProcessor().getBackendClient().getBackendSettings().getMessageCryptKey());
-					message.create(true).queue(); // can be async as we process a lot of em
+					ingestionQueue.submit(message); // sent in batches as we process a lot of em
 					add_(id, message);
 					return message;
 				}
@@ -143,6 +165,9 @@ public class MessageCache extends Cache<Long, Message>{
 				}
 				try{
 					remove_(id);
+					if(ingestionQueue.cancel(id)){
+						return null; // has not been sent yet or gets deleted once its creation finished
+					}
 					new Message(getBackendProcessor(), guildId, channelId, id).delete(true).execute();
 					return null;
 				}
@@ -198,6 +223,53 @@ public class MessageCache extends Cache<Long, Message>{
 		return new SupplierExecutionAction<>(getBackendProcessor().getScalingExecutor(), fun);
 	}
 
+	/**
+	 * Decrypts the content of the given messages in parallel using the common fork join pool
+	 *
+	 * @param messages to decrypt
+	 * @param cryptKey key
+	 *
+	 * @return plaintexts in the same order as the messages
+	 */
+	@CheckReturnValue
+	public ExecutionAction<List<String>> decryptAll(List<Message> messages, String cryptKey){
+		Supplier<List<String>> fun = () -> {
+			try{
+				// cipher instances are kept per thread, so each worker reuses its own
+				return IntStream.range(0, messages.size())
+					.parallel()
+					.mapToObj(i -> messages.get(i).getMessageContent(cryptKey))
+					.collect(Collectors.toList());
+			}
+			catch(CacheException | DataException e){
+				throw e;
+			}
+			catch(Exception e){
+				throw new CacheException(CacheException.Type.UNKNOWN, "Failed To Decrypt Messages", e);
+			}
+		};
+		return new SupplierExecutionAction<>(getBackendProcessor().getScalingExecutor(), fun);
+	}
+
+	/**
+	 * Decrypts the content of all cached messages in parallel
+	 *
+	 * @param cryptKey key
+	 *
+	 * @return plaintexts ordered from the oldest to the newest message
+	 */
+	@CheckReturnValue
+	public ExecutionAction<List<String>> decryptAll(String cryptKey){
+		List<Message> messages = new ArrayList<>();
+		for(var id : getOrderedKeys()){
+			var message = get_(id);
+			if(message != null){
+				messages.add(message);
+			}
+		}
+		return decryptAll(messages, cryptKey);
+	}
+
 	public void setLast(String type, long messageId){
 		Message message = get_(messageId);
 		if(message == null){
@@ -210,20 +282,147 @@ public class MessageCache extends Cache<Long, Message>{
 		return lastMap.get(type.toLowerCase());
 	}
 
-	@Override
-	public Message add_(Long id, Message message){
-		super.add_(id, message);
-		// remove entries which are too much
-		int defaultLimit = getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_CHANNEL_LOGGING_C();
-		int limit = (message.getChannel().getD43Z1Settings().has(Channel.D43Z1Settings.Settings.ACTIVE) && message.getChannel().getD43Z1Settings().has(Channel.D43Z1Settings.Settings.ENABLE_SELF_LEARNING))
+	/**
+	 * Returns the max number of messages kept for this channel
+	 * <p>
+	 * The limit is given by the license of the guild and doubled for channels using D43Z1 self learning.
+	 * It is computed once and kept until {@link #recomputeEffectiveLimit()} replaces it.
+	 *
+	 * @return limit
+	 */
+	public int getEffectiveLimit(){
+		int limit = effectiveLimit;
+		if(limit >= 0){
+			return limit;
+		}
+		int version = effectiveLimitVersion.get();
+		limit = peekLimit();
+		if(limit < 0){
+			var backendClient = getBackendProcessor().getBackendClient();
+			int defaultLimit = backendClient.getLicenseCache().retrieve(guildId, true).execute().getPerk_CHANNEL_LOGGING_C();
+			Channel channel = backendClient.getGuildCache().retrieve(guildId, true).execute().getChannelCache().retrieve(channelId, true).execute();
+			limit = computeLimit(defaultLimit, channel);
+		}
+		if(effectiveLimitVersion.get() == version){
+			effectiveLimit = limit; // only keep it if it has not been replaced in the meantime
+		}
+		return limit;
+	}
+
+	/**
+	 * Computes the effective limit again without blocking, needs to be called when the license or the channel settings change
+	 * <p>
+	 * The previous limit stays in use until the new one is known, so inserts dont wait for the backend.
+	 * If the computation fails, the limit is computed on the next insert.
+	 *
+	 * @return future of the new limit
+	 */
+	public CompletableFuture<Integer> recomputeEffectiveLimit(){
+		int version = effectiveLimitVersion.incrementAndGet();
+		var backendClient = getBackendProcessor().getBackendClient();
+		Channel cachedChannel = peekChannel();
+		CompletableFuture<Channel> channel = cachedChannel != null
+			? CompletableFuture.completedFuture(cachedChannel)
+			: backendClient.getGuildCache().retrieveAsync(guildId, true).thenCompose(guild -> guild.getChannelCache().retrieveAsync(channelId, true));
+		return backendClient.getLicenseCache().retrieveAsync(guildId, true)
+			.thenCombine(channel, (license, c) -> computeLimit(license.getPerk_CHANNEL_LOGGING_C(), c))
+			.whenComplete((limit, throwable) -> {
+				if(effectiveLimitVersion.get() != version){
+					return; // replaced by a newer computation
+				}
+				if(throwable != null){
+					effectiveLimit = -1;
+					return;
+				}
+				effectiveLimit = limit;
+				fitToLimit();
+			});
+	}
+
+	/**
+	 * Computes the limit from cached objects only, without contacting the backend or revalidating restored entries
+	 *
+	 * @return limit or -1 if the license or the channel are not cached
+	 */
+	private int peekLimit(){
+		License license = getBackendProcessor().getBackendClient().getLicenseCache().peek_(guildId);
+		Channel channel = peekChannel();
+		if(license == null || channel == null){
+			return -1;
+		}
+		return computeLimit(license.getPerk_CHANNEL_LOGGING_C(), channel);
+	}
+
+	private Channel peekChannel(){
+		Guild guild = getBackendProcessor().getBackendClient().getGuildCache().peek_(guildId);
+		return guild != null ? guild.getChannelCache().peek_(channelId) : null;
+	}
+
+	private static int computeLimit(int defaultLimit, Channel channel){
+		return (channel.getD43Z1Settings().has(Channel.D43Z1Settings.Settings.ACTIVE) && channel.getD43Z1Settings().has(Channel.D43Z1Settings.Settings.ENABLE_SELF_LEARNING))
 			? defaultLimit * 2 : defaultLimit;
-		while(getOrderedKeyMap().size() > limit){
-			var objTD = getOrderedKeyMap().get(0);
-			if(objTD != null){
+	}
+
+	public MessageIngestionQueue getIngestionQueue(){
+		return ingestionQueue;
+	}
+
+	@Override
+	public Message add_(long id, Message message){
+		if(!fitToLimit()){
+			return message;
+		}
+		return super.add_(id, message); // the oldest message gets evicted if the window is full
+	}
+
+	@Override
+	public int restore(JSONArray snapshot){
+		if(snapshot.isEmpty()){
+			return 0;
+		}
+		// the caches of the client are being restored, so the limit is only read from what has been restored already
+		int limit = effectiveLimit;
+		if(limit < 0){
+			int version = effectiveLimitVersion.get();
+			limit = peekLimit();
+			if(limit >= 0 && effectiveLimitVersion.get() == version){
+				effectiveLimit = limit;
+			}
+		}
+		if(limit < 0){
+			limit = Math.max(ringStorage.getCapacity(), snapshot.length()); // fitted to the effective limit on the next insert
+		}
+		if(!fitToLimit(limit)){
+			return 0;
+		}
+		return super.restore(snapshot);
+	}
+
+	/**
+	 * Sizes the ring to the effective limit
+	 *
+	 * @return false if no messages should be cached
+	 */
+	private boolean fitToLimit(){
+		return fitToLimit(getEffectiveLimit());
+	}
+
+	private boolean fitToLimit(int limit){
+		if(limit <= 0){
+			return false;
+		}
+		if(ringStorage.getCapacity() != limit){
+			// entries above a lowered limit are removed through the cache so that listeners notice
+			while(size() > limit){
+				var objTD = getOldestKey();
+				if(objTD == null){
+					break;
+				}
 				remove_(objTD);
 			}
+			ringStorage.setCapacity(limit);
 		}
-		return message;
+		return true;
 	}
 
 }
@@ -0,0 +1,411 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.cache;
+
+import de.netbeacon.xenia.backend.client.objects.apidata.Message;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendSettings;
+import de.netbeacon.xenia.backend.client.objects.internal.RateLimiter;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.BackendException;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
+import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
+import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collects new messages of a channel and sends them to the backend in batches
+ * <p>
+ * A batch is sent once it is full or the oldest message waited for the max delay. Batches of a channel are sent
+ * one after another in the order the messages have been submitted. Submitting blocks while the queue is full.
+ * <p>
+ * Batches which fail for a temporary reason (429, 5xx, timeouts) are put back to the head of the queue and retried with a backoff.
+ * <p>
+ * Queued updates of a message wait until it has been created. Messages cancelled while being sent are deleted once their creation finished.
+ */
+public class MessageIngestionQueue{
+
+	private static final String BULK_ROUTE = "messages/bulk";
+	private static final long SUBMIT_TIMEOUT = 10000;
+	private static final long RETRY_DELAY = 1000; // ms, base of the backoff after a failed batch
+
+	private final BackendProcessor backendProcessor;
+	private final List<String> path;
+	private final Logger logger = LoggerFactory.getLogger(MessageIngestionQueue.class);
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final LinkedHashMap<Long, Message> queue = new LinkedHashMap<>(); // insertion ordered, one entry per message id
+	private final HashMap<Long, CompletableFuture<Boolean>> pending = new HashMap<>(); // queued or in flight, completes with whether the message has been created
+	private final Set<Long> cancelled = new HashSet<>(); // cancelled while in flight
+	private boolean flushScheduled;
+	private boolean flushing;
+	private boolean backpressure;
+	private int failedAttempts;
+
+	public MessageIngestionQueue(BackendProcessor backendProcessor, long guildId, long channelId){
+		this.backendProcessor = backendProcessor;
+		this.path = List.of("data", "guilds", String.valueOf(guildId), "channels", String.valueOf(channelId), "messages");
+	}
+
+	/**
+	 * Queues the message to be created on the backend
+	 *
+	 * @param message to create
+	 *
+	 * @throws CacheException if the queue stayed full for too long
+	 */
+	public void submit(Message message) throws CacheException{
+		BackendSettings backendSettings = backendProcessor.getBackendSettings();
+		try{
+			lock.lock();
+			if(pending.containsKey(message.getId())){
+				return;
+			}
+			long nanos = TimeUnit.MILLISECONDS.toNanos(SUBMIT_TIMEOUT);
+			while(queue.size() >= backendSettings.getMessageQueueCapacity()){
+				if(nanos <= 0){
+					throw new CacheException(CacheException.Type.IS_FULL, "Message Queue Of Channel " + path.get(4) + " Is Full, The Backend Does Not Keep Up");
+				}
+				nanos = notFull.awaitNanos(nanos);
+			}
+			queue.put(message.getId(), message);
+			CompletableFuture<Boolean> created = new CompletableFuture<>();
+			pending.put(message.getId(), created);
+			message.orderUpdatesAfter(created); // would fail as long as the message does not exist
+			updateBackpressure(backendSettings);
+			if(flushing || failedAttempts > 0){
+				return; // picked up by the running flush or the scheduled retry
+			}
+			if(queue.size() >= backendSettings.getMessageBatchSize() || backendSettings.getMessageBatchDelay() <= 0){
+				backendProcessor.getScalingExecutor().execute(this::flush);
+			}
+			else if(!flushScheduled){
+				flushScheduled = true;
+				backendProcessor.getScheduledExecutor().schedule(() -> backendProcessor.getScalingExecutor().execute(this::flush), backendSettings.getMessageBatchDelay(), TimeUnit.MILLISECONDS);
+			}
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new CacheException(CacheException.Type.UNKNOWN, "Interrupted While Waiting For The Message Queue", e);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the message from the queue if it has not been sent yet
+	 * <p>
+	 * Messages which are being sent right now are deleted by the queue once their creation finished
+	 *
+	 * @param id of the message
+	 *
+	 * @return true if the message has been removed or will be deleted by the queue, false if it is not known to the queue
+	 */
+	public boolean cancel(long id){
+		CompletableFuture<Boolean> created;
+		try{
+			lock.lock();
+			if(queue.remove(id) == null){
+				if(!pending.containsKey(id)){
+					return false;
+				}
+				cancelled.add(id);
+				return true;
+			}
+			created = pending.remove(id);
+			notFull.signalAll();
+			updateBackpressure(backendProcessor.getBackendSettings());
+		}
+		finally{
+			lock.unlock();
+		}
+		created.complete(false);
+		return true;
+	}
+
+	/**
+	 * @return number of messages waiting to be sent
+	 */
+	public int getQueuedCount(){
+		try{
+			lock.lock();
+			return queue.size();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return true if the queue is filled above 75% of its capacity, which indicates that the backend lags behind
+	 */
+	public boolean isBackpressured(){
+		try{
+			lock.lock();
+			return backpressure;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private void updateBackpressure(BackendSettings backendSettings){
+		boolean current = queue.size() * 4L >= backendSettings.getMessageQueueCapacity() * 3L;
+		if(current && !backpressure){
+			logger.warn("Message Queue Of Channel " + path.get(4) + " Reached " + queue.size() + " Entries, The Backend Lags Behind");
+		}
+		backpressure = current;
+	}
+
+	private void flush(){
+		try{
+			lock.lock();
+			if(flushing){
+				return;
+			}
+			flushing = true;
+			flushScheduled = false;
+		}
+		finally{
+			lock.unlock();
+		}
+		while(true){
+			List<Message> batch = new ArrayList<>();
+			try{
+				lock.lock();
+				int batchSize = backendProcessor.getBackendSettings().getMessageBatchSize();
+				var iterator = queue.values().iterator();
+				while(iterator.hasNext() && batch.size() < batchSize){
+					batch.add(iterator.next());
+					iterator.remove();
+				}
+				if(batch.isEmpty()){
+					flushing = false;
+					return;
+				}
+				notFull.signalAll();
+				updateBackpressure(backendProcessor.getBackendSettings());
+			}
+			finally{
+				lock.unlock();
+			}
+			List<Message> unsent;
+			try{
+				unsent = send(batch);
+			}
+			catch(Exception e){
+				logger.error("Failed To Create " + batch.size() + " Messages Of Channel " + path.get(4), e);
+				unsent = unfinished(batch); // retried instead of being dropped
+			}
+			if(!unsent.isEmpty()){
+				retryLater(unsent);
+				return;
+			}
+			try{
+				lock.lock();
+				failedAttempts = 0;
+			}
+			finally{
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Puts messages which could not be sent for a temporary reason back to the head of the queue and schedules the next flush with a backoff
+	 *
+	 * @param unsent messages in the order they have been submitted
+	 */
+	private void retryLater(List<Message> unsent){
+		long delay;
+		List<CompletableFuture<Boolean>> dropped = new ArrayList<>();
+		try{
+			lock.lock();
+			LinkedHashMap<Long, Message> queued = new LinkedHashMap<>(queue);
+			queue.clear();
+			for(var message : unsent){
+				if(cancelled.remove(message.getId())){
+					dropped.add(pending.remove(message.getId())); // has not been created, nothing to delete
+				}
+				else{
+					queue.put(message.getId(), message);
+				}
+			}
+			queue.putAll(queued);
+			updateBackpressure(backendProcessor.getBackendSettings());
+			flushing = false;
+			flushScheduled = true;
+			delay = Math.max(RETRY_DELAY, RateLimiter.backoff(RETRY_DELAY, ++failedAttempts));
+		}
+		finally{
+			lock.unlock();
+		}
+		dropped.forEach(created -> created.complete(false));
+		logger.warn("Failed To Create " + unsent.size() + " Messages Of Channel " + path.get(4) + ", Retrying In " + delay + "ms");
+		try{
+			backendProcessor.getScheduledExecutor().schedule(() -> backendProcessor.getScalingExecutor().execute(this::flush), delay, TimeUnit.MILLISECONDS);
+		}
+		catch(RejectedExecutionException e){
+			logger.error("Failed To Schedule Retry Of " + unsent.size() + " Messages Of Channel " + path.get(4) + ", The Client Is Shutting Down");
+		}
+	}
+
+	/**
+	 * Creates the messages, at once if enabled (see {@link BackendSettings#setMessageBulkCreation(boolean)}). If this fails for a reason other than a temporary one they are created
+	 * one by one, so that only messages rejected on their own get dropped
+	 *
+	 * @return messages which could not be created for a temporary reason (429, 5xx, timeouts) and should be retried
+	 */
+	private List<Message> send(List<Message> batch){
+		if(batch.size() > 1 && backendProcessor.getBackendSettings().isMessageBulkCreation() && !backendProcessor.isUnsupported(BULK_ROUTE)){
+			JSONArray messages = new JSONArray();
+			long[] modificationCounts = new long[batch.size()];
+			for(int i = 0; i < batch.size(); i++){
+				modificationCounts[i] = batch.get(i).getModificationCount();
+				messages.put(batch.get(i).asJSON());
+			}
+			BackendResult backendResult;
+			try{
+				backendResult = backendProcessor.process(new BackendRequest(BackendRequest.Method.POST, BackendRequest.AuthType.BEARER, path, null, new JSONObject().put("messages", messages)));
+			}
+			catch(BackendException e){
+				return batch; // timed out or the backend is unavailable
+			}
+			int code = backendResult.getStatusCode();
+			if(code >= 200 && code <= 299){
+				Map<Long, JSONObject> returned = new HashMap<>();
+				JSONArray returnedMessages = code != 204 ? backendResult.getPayloadAsJSON().optJSONArray("messages") : null;
+				if(returnedMessages != null){
+					for(int i = 0; i < returnedMessages.length(); i++){
+						JSONObject jsonObject = returnedMessages.getJSONObject(i);
+						returned.put(jsonObject.getLong("messageId"), jsonObject);
+					}
+				}
+				for(int i = 0; i < batch.size(); i++){
+					Message message = batch.get(i);
+					message.onBulkCreation(returned.getOrDefault(message.getId(), messages.getJSONObject(i)), modificationCounts[i]);
+					finish(message, true);
+				}
+				return List.of();
+			}
+			// checked first, a backend without the route might answer with 501 which would be retried forever
+			if(code == 404 || code == 405 || code == 501){
+				backendProcessor.markUnsupported(BULK_ROUTE);
+				logger.debug("Bulk creation of messages is not supported, creating them one by one from now on");
+			}
+			else if(isRetryable(code)){
+				return batch;
+			}
+			else{
+				// a single bad message must not discard the others
+				logger.warn("Failed To Create " + batch.size() + " Messages Of Channel " + path.get(4) + " At Once With Status Code " + code + ", Creating Them One By One");
+			}
+		}
+		for(int i = 0; i < batch.size(); i++){
+			Message message = batch.get(i);
+			try{
+				message.create(true).execute();
+			}
+			catch(Exception e){
+				if(isRetryable(e)){
+					return batch.subList(i, batch.size());
+				}
+				logger.warn("Failed To Create Message " + message.getId() + ": " + e.getMessage());
+				finish(message, false);
+				continue;
+			}
+			finish(message, true);
+		}
+		return List.of();
+	}
+
+	/**
+	 * Releases updates waiting for the message and deletes it if it has been cancelled while being sent
+	 *
+	 * @param message which left the queue
+	 * @param created whether it has been created on the backend
+	 */
+	private void finish(Message message, boolean created){
+		CompletableFuture<Boolean> future;
+		boolean wasCancelled;
+		try{
+			lock.lock();
+			future = pending.remove(message.getId());
+			wasCancelled = cancelled.remove(message.getId());
+		}
+		finally{
+			lock.unlock();
+		}
+		if(wasCancelled && created){
+			message.deleteAsync(true).whenComplete((unused, throwable) -> {
+				if(throwable != null){
+					logger.warn("Failed To Delete Message " + message.getId() + " Which Has Been Cancelled While Being Created: " + throwable.getMessage());
+				}
+			});
+		}
+		if(future != null){
+			future.complete(created && !wasCancelled);
+		}
+	}
+
+	/**
+	 * @return messages of the batch which have neither been created nor dropped
+	 */
+	private List<Message> unfinished(List<Message> batch){
+		try{
+			lock.lock();
+			List<Message> unfinished = new ArrayList<>();
+			for(var message : batch){
+				if(pending.containsKey(message.getId())){
+					unfinished.add(message);
+				}
+			}
+			return unfinished;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private static boolean isRetryable(int code){
+		return code == 429 || code >= 500;
+	}
+
+	private static boolean isRetryable(Throwable throwable){
+		for(Throwable t = throwable; t != null; t = t.getCause()){
+			if(t instanceof BackendException){
+				return true;
+			}
+			if(t instanceof DataException dataException && dataException.getType() == DataException.Type.HTTP){
+				return isRetryable(dataException.getCode());
+			}
+		}
+		return false;
+	}
+
+}
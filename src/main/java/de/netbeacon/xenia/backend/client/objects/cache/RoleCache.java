@@ -25,7 +25,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheExcept
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -37,15 +37,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class RoleCache extends Cache<Long, Role>{
+public class RoleCache extends LongCache<Role>{
 
 	private final long guildId;
 
 	public RoleCache(BackendProcessor backendProcessor, long guildId){
-		super(backendProcessor);
+		super(backendProcessor, Role::getId);
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected Role newObject(Long id){
+		return new Role(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<Role> retrieve(Long id, boolean cache){
@@ -99,7 +104,7 @@ public class RoleCache extends Cache<Long, Role>{
 		Supplier<Role> fun = () -> {
 			try{
 				creationLock.lock();
-				if(getOrderedKeyMap().size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_GUILD_ROLE_C()){
+				if(size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_GUILD_ROLE_C()){
 					throw new RuntimeException("Cache Is Full");
 				}
 				Role role = new Role(getBackendProcessor(), guildId, -1).create(true).execute();
@@ -22,17 +22,22 @@ import de.netbeacon.xenia.backend.client.objects.apidata.User;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 
 import javax.annotation.CheckReturnValue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class UserCache extends Cache<Long, User>{
+public class UserCache extends LongCache<User>{
 
 	public UserCache(BackendProcessor backendProcessor){
-		super(backendProcessor);
+		super(backendProcessor, User::getId);
+	}
+
+	@Override
+	protected User newObject(Long id){
+		return new User(getBackendProcessor(), id);
 	}
 
 	@CheckReturnValue
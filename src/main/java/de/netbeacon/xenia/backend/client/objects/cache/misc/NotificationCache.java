@@ -25,7 +25,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheExcept
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -37,15 +37,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class NotificationCache extends Cache<Long, Notification>{
+public class NotificationCache extends LongCache<Notification>{
 
 	private final long guildId;
 
 	public NotificationCache(BackendProcessor backendProcessor, long guildId){
-		super(backendProcessor);
+		super(backendProcessor, Notification::getId);
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected Notification newObject(Long id){
+		return new Notification(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<Notification> retrieve(Long id, boolean cache){
@@ -100,7 +105,7 @@ public class NotificationCache extends Cache<Long, Notification>{
 		Supplier<Notification> fun = () -> {
 			try{
 				creationLock.lock();
-				if(getOrderedKeyMap().size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_NOTIFICATIONS_C()){
+				if(size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_NOTIFICATIONS_C()){
 					throw new CacheException(CacheException.Type.IS_FULL, "Cache Is Full");
 				}
 				Notification notification = new Notification(getBackendProcessor(), guildId, -1).lSetInitialData(channelId, userId, notificationTarget, notificationMessage);
@@ -46,6 +46,11 @@ public class TagCache extends Cache<String, Tag>{
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected Tag newObject(String id){
+		return new Tag(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<Tag> retrieve(String id, boolean cache){
@@ -100,7 +105,7 @@ public class TagCache extends Cache<String, Tag>{
 		Supplier<Tag> fun = () -> {
 			try{
 				creationLock.lock();
-				if(getOrderedKeyMap().size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_TAGS_C()){
+				if(size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_TAGS_C()){
 					throw new CacheException(CacheException.Type.IS_FULL, "Cache Is Full");
 				}
 				if(contains(tagName)){
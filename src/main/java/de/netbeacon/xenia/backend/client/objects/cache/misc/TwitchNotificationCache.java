@@ -25,7 +25,7 @@ import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheExcept
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
-import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.LongCache;
 import de.netbeacon.xenia.backend.client.objects.internal.ws.processor.WSRequest;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -38,15 +38,20 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 
-public class TwitchNotificationCache extends Cache<Long, TwitchNotification>{
+public class TwitchNotificationCache extends LongCache<TwitchNotification>{
 
 	private final long guildId;
 
 	public TwitchNotificationCache(BackendProcessor backendProcessor, long guildId){
-		super(backendProcessor);
+		super(backendProcessor, TwitchNotification::getId);
 		this.guildId = guildId;
 	}
 
+	@Override
+	protected TwitchNotification newObject(Long id){
+		return new TwitchNotification(getBackendProcessor(), guildId, id);
+	}
+
 	@CheckReturnValue
 	@Override
 	public ExecutionAction<TwitchNotification> retrieve(Long id, boolean cache){
@@ -101,11 +106,11 @@ public class TwitchNotificationCache extends Cache<Long, TwitchNotification>{
 		Supplier<TwitchNotification> fun = () -> {
 			try{
 				creationLock.lock();
-				if(getOrderedKeyMap().size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_TWITCHNOTIFICATIONS_C()){
+				if(size() + 1 > getBackendProcessor().getBackendClient().getLicenseCache().retrieve(guildId, true).execute().getPerk_MISC_TWITCHNOTIFICATIONS_C()){
 					throw new CacheException(CacheException.Type.IS_FULL, "Cache Is Full");
 				}
 				// check if we already know the name
-				if(getDataMap().values().stream().anyMatch(tn -> tn.getTwitchChannelName().equalsIgnoreCase(twitchName))){
+				if(getAllAsList().stream().anyMatch(tn -> tn.getTwitchChannelName().equalsIgnoreCase(twitchName))){
 					throw new CacheException(CacheException.Type.ALREADY_EXISTS, "Twitch Notification Already Exists");
 				}
 				TwitchNotification tnotific = new TwitchNotification(getBackendProcessor(), guildId, -1).lSetInitialData(twitchName, channelId);
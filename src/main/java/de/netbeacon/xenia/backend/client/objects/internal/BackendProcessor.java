@@ -28,12 +28,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
 
@@ -43,13 +53,31 @@ public class BackendProcessor implements IShutdown{
 	private final OkHttpClient okHttpClient;
 	private final BackendSettings backendSettings;
 	private final Logger logger = LoggerFactory.getLogger(BackendProcessor.class);
-	private final ScalingExecutor scalingExecutor = new ScalingExecutor(4, 128, -1, 30, TimeUnit.SECONDS);
+	private final ScalingExecutor scalingExecutor;
+	private final ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "BackendProcessor-Scheduler");
+		thread.setDaemon(true);
+		return thread;
+	}); // only used to delay tasks, work should be passed to the scaling executor
 	private final ReentrantLock lock = new ReentrantLock();
+	private final AtomicReference<CompletableFuture<String>> tokenRefresh = new AtomicReference<>();
+	// single flight of identical GET requests, flights are completed on the thread receiving the response
+	private final ConcurrentHashMap<FlightKey, CompletableFuture<BackendResult>> inFlightRequests = new ConcurrentHashMap<>();
+	private final LongAdder flightRequests = new LongAdder();
+	private final LongAdder mergedRequests = new LongAdder();
+	private final LongAdder responses = new LongAdder();
+	private final LongAdder failedResponses = new LongAdder(); // 429, 5xx and timeouts
+	private final LongAdder responseTime = new LongAdder();
+	private final CircuitBreaker circuitBreaker = new CircuitBreaker(this);
+	private final Set<String> unsupportedRoutes = ConcurrentHashMap.newKeySet(); // optional routes the backend of this client rejected
 
 	public BackendProcessor(XeniaBackendClient xeniaBackendClient){
 		this.xeniaBackendClient = xeniaBackendClient;
 		this.okHttpClient = xeniaBackendClient.getOkHttpClient();
 		this.backendSettings = xeniaBackendClient.getBackendSettings();
+		this.scalingExecutor = backendSettings.getExecutionMode() == BackendSettings.ExecutionMode.VIRTUAL
+			? new VirtualThreadExecutor(backendSettings.getVirtualThreadConcurrency(), 4, 128)
+			: new ScalingExecutor(4, 128, -1, 30, TimeUnit.SECONDS);
 	}
 
 	// auth
@@ -74,7 +102,7 @@ public class BackendProcessor implements IShutdown{
 				// renew this token by telling the backend that it still is in use
 				BackendRequest backendRequest = new BackendRequest(BackendRequest.Method.GET, BackendRequest.AuthType.BEARER, Arrays.asList("auth", "token", "renew"), new HashMap<>(), null);
 				BackendResult backendResult = process(backendRequest);
-				if(backendResult.getStatusCode() < 300 || backendResult.getStatusCode() > 199){
+				if(backendResult.getStatusCode() < 300 && backendResult.getStatusCode() > 199){
 					logger.debug("Renewed Token Successfully");
 				}
 				else{
@@ -91,7 +119,115 @@ public class BackendProcessor implements IShutdown{
 		}
 	}
 
+	/**
+	 * Requests a new token after the backend rejected the current one
+	 * <p>
+	 * Only one refresh runs at a time. The first caller performs it on its own thread, callers arriving meanwhile
+	 * share its future. If the rejected token has been replaced already the current one is returned without a request.
+	 *
+	 * @param rejectedToken token the backend responded with 401 to
+	 *
+	 * @return future of the new token, completes exceptionally with a {@link BackendException} if no token could be obtained
+	 */
+	public CompletableFuture<String> refreshToken(String rejectedToken){
+		String current = backendSettings.getToken();
+		if(current != null && !current.isBlank() && !current.equals(rejectedToken)){
+			return CompletableFuture.completedFuture(current);
+		}
+		if(lock.isHeldByCurrentThread()){
+			// rejected while activating the token, waiting for a refresh of another thread would deadlock
+			try{
+				replaceToken(rejectedToken);
+				return CompletableFuture.completedFuture(backendSettings.getToken());
+			}
+			catch(Exception e){
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		CompletableFuture<String> flight = new CompletableFuture<>();
+		var running = tokenRefresh.compareAndExchange(null, flight);
+		if(running != null){
+			return running;
+		}
+		try{
+			replaceToken(rejectedToken);
+			flight.complete(backendSettings.getToken());
+		}
+		catch(Exception e){
+			flight.completeExceptionally(e);
+		}
+		finally{
+			tokenRefresh.compareAndSet(flight, null);
+		}
+		return flight;
+	}
+
+	private void replaceToken(String rejectedToken){
+		try{
+			lock.lock();
+			String current = backendSettings.getToken();
+			if(current == null || current.isBlank() || current.equals(rejectedToken)){
+				backendSettings.setToken(null);
+				activateToken();
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Processes the request, blocking until the response arrived
+	 * <p>
+	 * Identical GET requests which are in flight at the same time share one response, unless the flight started before a write to the same route
+	 *
+	 * @param backendRequest request
+	 *
+	 * @return result
+	 *
+	 * @throws BackendException on failure
+	 */
 	public BackendResult process(BackendRequest backendRequest) throws BackendException{
+		if(backendRequest.getMethod() != BackendRequest.Method.GET){
+			invalidateFlights(backendRequest);
+			try{
+				return execute(backendRequest);
+			}
+			finally{
+				invalidateFlights(backendRequest);
+			}
+		}
+		FlightKey key = flightKey(backendRequest);
+		CompletableFuture<BackendResult> flight = new CompletableFuture<>();
+		var inFlight = inFlightRequests.putIfAbsent(key, flight);
+		if(inFlight != null){
+			mergedRequests.increment();
+			try{
+				return inFlight.join();
+			}
+			catch(CompletionException e){
+				if(e.getCause() instanceof BackendException backendException){
+					throw backendException;
+				}
+				throw new BackendException(-1, e);
+			}
+		}
+		flightRequests.increment();
+		try{
+			BackendResult backendResult = execute(backendRequest);
+			flight.complete(backendResult);
+			return backendResult;
+		}
+		catch(BackendException e){
+			flight.completeExceptionally(e);
+			throw e;
+		}
+		finally{
+			inFlightRequests.remove(key, flight);
+		}
+	}
+
+	private BackendResult execute(BackendRequest backendRequest) throws BackendException{
 		try{
 			try(Response response = okHttpClient.newCall(buildOkHttpRequest(backendRequest)).execute()){
 				// parse response
@@ -106,37 +242,203 @@ public class BackendProcessor implements IShutdown{
 			}
 		}
 		catch(Exception e){
-			throw new BackendException(-1, e);
+			throw new BackendException(e instanceof CircuitBreaker.OpenException ? -3 : -1, e);
 		}
 	}
 
 	public void processAsync(BackendRequest backendRequest, Consumer<BackendResult> resultConsumer) throws BackendException{
 		try{
-			okHttpClient.newCall(buildOkHttpRequest(backendRequest)).enqueue(new Callback(){
+			CompletableFuture<BackendResult> future = new CompletableFuture<>();
+			future.whenCompleteAsync((backendResult, throwable) -> {
+				if(throwable != null){
+					logger.error("Failed To Process Request Async: ", throwable);
+					resultConsumer.accept(new BackendResult(-1, null, 0));
+				}
+				else{
+					resultConsumer.accept(backendResult);
+				}
+			}, scalingExecutor);
+			enqueue(buildOkHttpRequest(backendRequest).newBuilder().tag(Dispatch.class, Dispatch.ASYNC).build(), future);
+		}
+		catch(Exception e){
+			throw new BackendException(-1, e);
+		}
+	}
+
+	/**
+	 * Processes the request without blocking the calling thread
+	 * <p>
+	 * The future gets completed on the scaling executor, either with the result or exceptionally with a {@link BackendException}.
+	 * Identical GET requests which are in flight at the same time share one response, unless the flight started before a write to the same route
+	 *
+	 * @param backendRequest request
+	 *
+	 * @return future of the result
+	 */
+	public CompletableFuture<BackendResult> processFuture(BackendRequest backendRequest){
+		if(backendRequest.getMethod() != BackendRequest.Method.GET){
+			invalidateFlights(backendRequest);
+			return onScalingExecutor(enqueue(backendRequest).whenComplete((backendResult, throwable) -> invalidateFlights(backendRequest)));
+		}
+		FlightKey key = flightKey(backendRequest);
+		CompletableFuture<BackendResult> flight = new CompletableFuture<>();
+		var inFlight = inFlightRequests.putIfAbsent(key, flight);
+		if(inFlight != null){
+			mergedRequests.increment();
+			return onScalingExecutor(inFlight);
+		}
+		flightRequests.increment();
+		enqueue(backendRequest).whenComplete((backendResult, throwable) -> {
+			inFlightRequests.remove(key, flight);
+			if(throwable != null){
+				flight.completeExceptionally(throwable);
+			}
+			else{
+				flight.complete(backendResult);
+			}
+		});
+		return onScalingExecutor(flight);
+	}
+
+	/**
+	 * Sends the request without blocking
+	 * <p>
+	 * The future gets completed on the OkHttp dispatcher thread, so that blocking requests sharing its flight do not depend
+	 * on the scaling executor which might be busy with them. Dependent work must be moved off that thread.
+	 * Waiting for the rate limit of the route and for retries is done by sending the request again from the scheduled executor.
+	 */
+	private CompletableFuture<BackendResult> enqueue(BackendRequest backendRequest){
+		CompletableFuture<BackendResult> future = new CompletableFuture<>();
+		try{
+			enqueue(buildOkHttpRequest(backendRequest).newBuilder().tag(Dispatch.class, Dispatch.ASYNC).build(), future);
+		}
+		catch(Exception e){
+			future.completeExceptionally(new BackendException(-1, e));
+		}
+		return future;
+	}
+
+	private void enqueue(Request request, CompletableFuture<BackendResult> future){
+		try{
+			okHttpClient.newCall(request).enqueue(new Callback(){
 
 				@Override
 				public void onFailure(@NotNull Call call, @NotNull IOException e){
-					logger.error("Failed To Process Request Async: ", e);
-					scalingExecutor.execute(() -> resultConsumer.accept(new BackendResult(-1, null, 0)));
+					if(e instanceof Interceptor.RescheduleException rescheduleException){
+						// waiting for the rate limit or a retry, this must not block the dispatcher
+						try{
+							scheduledExecutor.schedule(() -> enqueue(rescheduleException.getRequest(), future), rescheduleException.getDelay(), TimeUnit.MILLISECONDS);
+							return;
+						}
+						catch(RejectedExecutionException ignore){}
+					}
+					future.completeExceptionally(new BackendException(e instanceof CircuitBreaker.OpenException ? -3 : -1, e));
 				}
 
 				@Override
-				public void onResponse(@NotNull Call call, @NotNull Response response) throws IOException{
-					int code = response.code();
-					long requestDuration = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
-					if(response.body() != null){
-						byte[] body = response.body().bytes();
-						scalingExecutor.execute(() -> resultConsumer.accept(new BackendResult(code, body, requestDuration)));
+				public void onResponse(@NotNull Call call, @NotNull Response response){
+					try(response){
+						int code = response.code();
+						long requestDuration = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+						byte[] body = response.body() != null ? response.body().bytes() : null;
+						future.complete(new BackendResult(code, body, requestDuration));
 					}
-					else{
-						scalingExecutor.execute(() -> resultConsumer.accept(new BackendResult(code, null, requestDuration)));
+					catch(Exception e){
+						future.completeExceptionally(new BackendException(-1, e));
 					}
 				}
 			});
-
 		}
 		catch(Exception e){
-			throw new BackendException(-1, e);
+			future.completeExceptionally(new BackendException(-1, e));
+		}
+	}
+
+	private CompletableFuture<BackendResult> onScalingExecutor(CompletableFuture<BackendResult> future){
+		return future.whenCompleteAsync((backendResult, throwable) -> {}, scalingExecutor);
+	}
+
+	/**
+	 * Stops GET requests in flight on the route of the write or a route containing it from being shared with new requests,
+	 * as their response might not contain the written data
+	 */
+	private void invalidateFlights(BackendRequest write){
+		String route = route(write);
+		inFlightRequests.keySet().removeIf(key -> key.route().equals(route) || route.startsWith(key.route() + "/") || key.route().startsWith(route + "/"));
+	}
+
+	private static String route(BackendRequest backendRequest){
+		StringBuilder route = new StringBuilder();
+		for(String pathSeg : backendRequest.getPath()){
+			route.append('/').append(pathSeg);
+		}
+		return route.toString();
+	}
+
+	private static FlightKey flightKey(BackendRequest backendRequest){
+		return new FlightKey(backendRequest.getAuthType(), route(backendRequest), new TreeMap<>(backendRequest.getQueryParams()));
+	}
+
+	private record FlightKey(BackendRequest.AuthType authType, String route, Map<String, String> queryParams){}
+
+	/**
+	 * @return number of GET requests which have been sent to the backend
+	 */
+	public long getFlightRequestCount(){
+		return flightRequests.sum();
+	}
+
+	/**
+	 * @return number of GET requests which have been served by a request already in flight
+	 */
+	public long getMergedRequestCount(){
+		return mergedRequests.sum();
+	}
+
+	/**
+	 * @return number of responses received from the backend, including those of retried requests
+	 */
+	public long getResponseCount(){
+		return responses.sum();
+	}
+
+	/**
+	 * @return number of responses indicating an overloaded backend (429, 5xx) and timed out requests
+	 */
+	public long getFailedResponseCount(){
+		return failedResponses.sum();
+	}
+
+	/**
+	 * @return sum of the time between sending the requests and receiving their responses in ms
+	 */
+	public long getResponseTimeSum(){
+		return responseTime.sum();
+	}
+
+	/**
+	 * Remembers that the backend of this client does not offer an optional route, such as bulk requests or partial updates
+	 *
+	 * @param route name of the route
+	 */
+	public void markUnsupported(String route){
+		unsupportedRoutes.add(route);
+	}
+
+	/**
+	 * @param route name of the route
+	 *
+	 * @return true if the backend of this client rejected the route before
+	 */
+	public boolean isUnsupported(String route){
+		return unsupportedRoutes.contains(route);
+	}
+
+	private void recordResponse(int code, long duration){
+		responses.increment();
+		responseTime.add(duration);
+		if(code == 429 || code >= 500 || code < 0){
+			failedResponses.increment();
 		}
 	}
 
@@ -180,6 +482,14 @@ public class BackendProcessor implements IShutdown{
 						throw new BackendException(-1, "No Body Specified Which Is Needed For POST");
 					}
 					break;
+				case PATCH:
+					if(backendRequest.getPayload().length != 0){
+						requestBuilder.patch(RequestBody.create(backendRequest.getPayload(), MediaType.get("application/json")));
+					}
+					else{
+						throw new BackendException(-1, "No Body Specified Which Is Needed For PATCH");
+					}
+					break;
 				case DELETE:
 					if(backendRequest.getPayload().length != 0){
 						requestBuilder.delete(RequestBody.create(backendRequest.getPayload(), MediaType.get("application/json")));
@@ -205,26 +515,44 @@ public class BackendProcessor implements IShutdown{
 		return scalingExecutor;
 	}
 
+	public CircuitBreaker getCircuitBreaker(){
+		return circuitBreaker;
+	}
+
+	public ScheduledExecutorService getScheduledExecutor(){
+		return scheduledExecutor;
+	}
+
 	public BackendSettings getBackendSettings(){
 		return backendSettings;
 	}
 
 	@Override
 	public void onShutdown() throws Exception{
+		scheduledExecutor.shutdown(); // delayed tasks such as coalesced updates still get executed
+		scheduledExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
 		scalingExecutor.shutdown();
 		scalingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
 		okHttpClient.dispatcher().executorService().shutdown();
+		if(backendSettings.getMessageBodyStore() != null){
+			backendSettings.getMessageBodyStore().close();
+		}
+	}
+
+	/**
+	 * Tags requests sent without blocking, the interceptor reschedules them instead of waiting on the dispatcher thread
+	 */
+	private enum Dispatch{
+		ASYNC
 	}
 
 	public static class Interceptor implements okhttp3.Interceptor{
 
-		private static final long forceUpdateDelay = 2500;
 		private static final int maxRetries = 4;
 		private static final long timeoutRetryDelay = 1000;
 		private final XeniaBackendClient client;
-		private final Lock lock = new ReentrantLock();
+		private final RateLimiter rateLimiter = new RateLimiter();
 		private final Logger logger = LoggerFactory.getLogger(BackendProcessor.Interceptor.class);
-		private long lastTokenUpdate;
 
 		public Interceptor(XeniaBackendClient client){
 			this.client = client;
@@ -233,12 +561,35 @@ public class BackendProcessor implements IShutdown{
 		@NotNull
 		@Override
 		public Response intercept(@NotNull Chain chain) throws IOException{
+			Request request = chain.request();
+			String route = RateLimiter.route(request);
+			CircuitBreaker circuitBreaker = client.getBackendProcessor().getCircuitBreaker();
+			circuitBreaker.check(route); // fails fast while the backend is unavailable, retries included
+			boolean async = request.tag(Dispatch.class) == Dispatch.ASYNC;
+			if(async){
+				// runs on a dispatcher thread shared by all routes, the wait is left to the scheduled executor
+				long wait = rateLimiter.tryAcquire(route);
+				if(wait > 0){
+					throw new RescheduleException(request, wait);
+				}
+			}
+			else{
+				try{
+					rateLimiter.acquire(route);
+				}
+				catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted While Waiting For Rate Limit Of " + route);
+				}
+			}
 			try{
-				Request request = null;
 				Response response;
 				try{
-					request = chain.request();
 					response = chain.proceed(request);
+					long duration = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+					client.getBackendProcessor().recordResponse(response.code(), duration);
+					circuitBreaker.record(route, response.code() >= 500, duration);
+					rateLimiter.update(route, response.headers());
 					if(response.code() == 401 && request.headers().get("Authorization") != null && request.headers().get("Authorization").startsWith("Bearer")){
 						throw new RecoverableException(RecoverableException.Type.UNAUTHORIZED, request, response); // only for when we used a bearer
 					}
@@ -248,89 +599,135 @@ public class BackendProcessor implements IShutdown{
 					return response;
 				}
 				catch(SocketTimeoutException socketTimeoutException){
+					client.getBackendProcessor().recordResponse(-1, client.getOkHttpClient().readTimeoutMillis());
+					circuitBreaker.record(route, true, client.getOkHttpClient().readTimeoutMillis());
 					throw new RecoverableException(RecoverableException.Type.TIMEOUT, request, null);
 				}
+				catch(IOException e){
+					circuitBreaker.record(route, true, 0); // connection failures
+					throw e;
+				}
 			}
 			catch(RecoverableException recoverableException){
-				try{
-					lock.lock();
-					int currentRetries = 0;
-					if(recoverableException.getRequest().headers().get("Request-Retries") != null){
-						currentRetries = Integer.parseInt(recoverableException.getRequest().headers().get("Request-Retries"));
+				int currentRetries = 0;
+				if(recoverableException.getRequest().headers().get("Request-Retries") != null){
+					currentRetries = Integer.parseInt(recoverableException.getRequest().headers().get("Request-Retries"));
+				}
+				currentRetries++;
+				if(currentRetries > maxRetries){
+					if(recoverableException.getResponse() != null){
+						return recoverableException.getResponse();
 					}
-					currentRetries++;
-					if(currentRetries > maxRetries){
-						if(recoverableException.getResponse() != null){
-							return recoverableException.getResponse();
+					throw new IOException("Failed To Retry Request " + recoverableException.getRequest() + " (" + recoverableException.getType() + "). Max retries reached");
+				}
+				else if(recoverableException.getResponse() != null){
+					recoverableException.getResponse().close();
+				}
+				// recovery is handled per request, so retries of one route dont stall other requests
+				long delay = 0;
+				switch(recoverableException.getType()){
+					case TOO_MANY_REQUESTS:{
+						long blocked = rateLimiter.onTooManyRequests(route, recoverableException.getResponse().headers(), currentRetries);
+						logger.debug("Received 429 response from backend for " + route + " - Retrying in " + blocked + "ms");
+						// the retry waits for the route to be unblocked when passing this interceptor again
+						if(async){
+							delay = blocked;
 						}
-						throw new IOException("Failed To Retry Request " + recoverableException.getRequest() + " (" + recoverableException.getType() + "). Max retries reached");
 					}
-					else if(recoverableException.getResponse() != null){
-						recoverableException.getResponse().close();
+					break;
+					case TIMEOUT:{
+						delay = RateLimiter.backoff(timeoutRetryDelay, currentRetries);
 					}
-					switch(recoverableException.getType()){
-						case TOO_MANY_REQUESTS:{
-							// add later, for now we use the default behaviour of timeout
-						}
-						case TIMEOUT:{
+					break;
+					case UNAUTHORIZED:{
+						if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Bearer")){
+							String rejectedToken = recoverableException.getRequest().headers().get("Authorization").substring("Bearer".length()).trim();
+							logger.debug("Received 401 response from backend for token auth - Waiting for a new token");
 							try{
-								TimeUnit.MILLISECONDS.sleep(timeoutRetryDelay);
-							}
-							catch(InterruptedException ignore){
+								client.getBackendProcessor().refreshToken(rejectedToken).join(); // shared by all requests rejected with the same token
 							}
-						}
-						break;
-						case UNAUTHORIZED:{
-							if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Bearer")){
-								if(lastTokenUpdate + forceUpdateDelay < System.currentTimeMillis()){
-									logger.warn("Received 401 response from backend for token auth - Requesting new token");
-									lastTokenUpdate = System.currentTimeMillis();
-									client.getBackendProcessor().activateToken(); // update token
-								}
-								else{
-									logger.debug("Received 401 response from backend for token auth - Token has been exchanged recently, wont request a new one.");
-									try{
-										TimeUnit.MILLISECONDS.sleep(forceUpdateDelay / 4);
-									}
-									catch(InterruptedException ignore){
-									}
-								}
+							catch(CompletionException e){
+								throw new IOException("Failed To Refresh Token", e.getCause());
 							}
 						}
-						break;
-						default:{
-							throw new IOException("Unknown Error");
-						}
-					}
-					if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Bearer")){
-						return client.getOkHttpClient().newCall(recoverableException.getRequest().newBuilder()
-							.removeHeader("Authorization")
-							.addHeader("Authorization", "Bearer " + client.getBackendProcessor().getBackendSettings().getToken())
-							.addHeader("Request-Retries", String.valueOf(currentRetries))
-							.build()
-						).execute();
 					}
-					else if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Basic")){
-						return client.getOkHttpClient().newCall(recoverableException.getRequest().newBuilder()
-							.removeHeader("Authorization")
-							.addHeader("Authorization", Credentials.basic(client.getBackendSettings().getClientIdAsString(), client.getBackendSettings().getPassword()))
-							.addHeader("Request-Retries", String.valueOf(currentRetries))
-							.build()
-						).execute();
-					}
-					else{
-						return client.getOkHttpClient().newCall(recoverableException.getRequest().newBuilder()
-							.addHeader("Request-Retries", String.valueOf(currentRetries))
-							.build()
-						).execute();
+					break;
+					default:{
+						throw new IOException("Unknown Error");
 					}
 				}
-				finally{
-					lock.unlock();
+				Request retry;
+				if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Bearer")){
+					retry = recoverableException.getRequest().newBuilder()
+						.removeHeader("Authorization")
+						.addHeader("Authorization", "Bearer " + client.getBackendProcessor().getBackendSettings().getToken())
+						.removeHeader("Request-Retries")
+						.addHeader("Request-Retries", String.valueOf(currentRetries))
+						.build();
 				}
+				else if(recoverableException.getRequest().headers().get("Authorization") != null && recoverableException.getRequest().headers().get("Authorization").startsWith("Basic")){
+					retry = recoverableException.getRequest().newBuilder()
+						.removeHeader("Authorization")
+						.addHeader("Authorization", Credentials.basic(client.getBackendSettings().getClientIdAsString(), client.getBackendSettings().getPassword()))
+						.removeHeader("Request-Retries")
+						.addHeader("Request-Retries", String.valueOf(currentRetries))
+						.build();
+				}
+				else{
+					retry = recoverableException.getRequest().newBuilder()
+						.removeHeader("Request-Retries")
+						.addHeader("Request-Retries", String.valueOf(currentRetries))
+						.build();
+				}
+				if(async){
+					throw new RescheduleException(retry, delay);
+				}
+				sleep(delay);
+				return client.getOkHttpClient().newCall(retry).execute();
+			}
+		}
+
+		public RateLimiter getRateLimiter(){
+			return rateLimiter;
+		}
+
+		private static void sleep(long millis) throws InterruptedIOException{
+			try{
+				TimeUnit.MILLISECONDS.sleep(millis);
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted While Waiting To Retry");
 			}
 		}
 
+		/**
+		 * Thrown for requests sent without blocking instead of waiting on the dispatcher thread, the request is sent again once the delay passed
+		 */
+		public static class RescheduleException extends IOException{
+
+			private final Request request;
+			private final long delay;
+
+			public RescheduleException(Request request, long delay){
+				super("Request Rescheduled In " + delay + "ms");
+				this.request = request;
+				this.delay = delay;
+			}
+
+			public Request getRequest(){
+				return request;
+			}
+
+			/**
+			 * @return delay in ms
+			 */
+			public long getDelay(){
+				return delay;
+			}
+
+		}
+
 		public static class RecoverableException extends Exception{
 
 			private final Type type;
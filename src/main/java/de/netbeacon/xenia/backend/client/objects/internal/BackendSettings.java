@@ -16,6 +16,14 @@
 
 package de.netbeacon.xenia.backend.client.objects.internal;
 
+import de.netbeacon.utils.memory.OffHeapByteStore;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.Cache;
+import de.netbeacon.xenia.backend.client.objects.internal.objects.CachePolicy;
+
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
 public class BackendSettings{
 
 	private final String scheme;
@@ -27,6 +35,33 @@ public class BackendSettings{
 	private String token;
 
 	private String messageCryptKey;
+	private MessageCryptMode messageCryptMode = MessageCryptMode.LEGACY;
+	private MessageContentRetention messageContentRetention = MessageContentRetention.SOFT;
+	private OffHeapByteStore messageBodyStore;
+
+	private final ConcurrentHashMap<Class<?>, CachePolicy> cachePolicies = new ConcurrentHashMap<>();
+
+	private long updateCoalescingWindow = 50;
+
+	private int messageBatchSize = 50;
+	private long messageBatchDelay = 100;
+	private int messageQueueCapacity = 1000;
+	private boolean messageBulkCreation = false;
+
+	private int bootstrapConcurrency = 16;
+	private int startupWaveSize = 10;
+	private int startupMaxWaveSize = 200;
+	private long startupTargetLatency = 500;
+
+	private double circuitBreakerFailureRate = 0.5;
+	private long circuitBreakerSlowCallThreshold = 10000;
+	private long circuitBreakerOpenDuration = 10000;
+
+	private Path cacheSnapshotFile;
+	private long cacheSnapshotMaxAge = TimeUnit.HOURS.toMillis(6);
+
+	private ExecutionMode executionMode = ExecutionMode.PLATFORM;
+	private int virtualThreadConcurrency = 1024;
 
 	public BackendSettings(String scheme, String host, int port, long clientId, String password, String messageCryptKey){
 		this.scheme = scheme;
@@ -80,4 +115,351 @@ public class BackendSettings{
 		return messageCryptKey;
 	}
 
+	/**
+	 * Sets the mode used to encrypt new message content, content encrypted with any mode can always be decrypted
+	 *
+	 * @param messageCryptMode mode
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageCryptMode(MessageCryptMode messageCryptMode){
+		this.messageCryptMode = messageCryptMode;
+		return this;
+	}
+
+	public MessageCryptMode getMessageCryptMode(){
+		return messageCryptMode;
+	}
+
+	/**
+	 * Sets how decrypted message content is kept to avoid decrypting it again
+	 *
+	 * @param messageContentRetention retention
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageContentRetention(MessageContentRetention messageContentRetention){
+		this.messageContentRetention = messageContentRetention;
+		return this;
+	}
+
+	public MessageContentRetention getMessageContentRetention(){
+		return messageContentRetention;
+	}
+
+	/**
+	 * Sets how new messages are collected before they are sent to the backend with one request
+	 *
+	 * @param maxBatchSize max number of messages per request, 1 to send each message on its own
+	 * @param maxDelay     max time a message waits for more to arrive
+	 * @param timeUnit     unit
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageBatching(int maxBatchSize, long maxDelay, TimeUnit timeUnit){
+		this.messageBatchSize = Math.max(1, maxBatchSize);
+		this.messageBatchDelay = timeUnit.toMillis(maxDelay);
+		return this;
+	}
+
+	public int getMessageBatchSize(){
+		return messageBatchSize;
+	}
+
+	/**
+	 * @return max delay in ms
+	 */
+	public long getMessageBatchDelay(){
+		return messageBatchDelay;
+	}
+
+	/**
+	 * Sets the max number of messages per channel waiting to be sent, creating messages blocks while the limit is reached
+	 *
+	 * @param messageQueueCapacity capacity
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageQueueCapacity(int messageQueueCapacity){
+		this.messageQueueCapacity = messageQueueCapacity;
+		return this;
+	}
+
+	public int getMessageQueueCapacity(){
+		return messageQueueCapacity;
+	}
+
+	/**
+	 * Enables creating batches of messages with one request, this requires the backend to support the following:
+	 * <p>
+	 * POST to the messages route of a channel with a body of {"messages": [...]} containing the messages as they would be sent one by one.
+	 * The backend responds with 2xx once all messages have been created, optionally returning their state as {"messages": [...]}
+	 * identified by their messageId. 404, 405 or 501 mark the request as unsupported and messages get created one by one from then on,
+	 * 429, 5xx and timeouts retry the whole batch, any other response falls back to creating the messages of the batch one by one.
+	 * <p>
+	 * Disabled by default, messages of a batch get created one by one then
+	 *
+	 * @param messageBulkCreation whether batches should be sent with one request
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageBulkCreation(boolean messageBulkCreation){
+		this.messageBulkCreation = messageBulkCreation;
+		return this;
+	}
+
+	public boolean isMessageBulkCreation(){
+		return messageBulkCreation;
+	}
+
+	/**
+	 * Sets the store the encrypted content of messages is kept in instead of the heap
+	 * <p>
+	 * Messages fall back to the heap while the store is full. The store gets closed on shutdown.
+	 *
+	 * @param messageBodyStore store, null to keep the content on the heap
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setMessageBodyStore(OffHeapByteStore messageBodyStore){
+		this.messageBodyStore = messageBodyStore;
+		return this;
+	}
+
+	public OffHeapByteStore getMessageBodyStore(){
+		return messageBodyStore;
+	}
+
+	// bootstrap
+
+	/**
+	 * Sets the max number of caches loaded at the same time when initializing guilds, shared by all guilds
+	 *
+	 * @param bootstrapConcurrency concurrency
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setBootstrapConcurrency(int bootstrapConcurrency){
+		this.bootstrapConcurrency = bootstrapConcurrency;
+		return this;
+	}
+
+	public int getBootstrapConcurrency(){
+		return bootstrapConcurrency;
+	}
+
+	/**
+	 * Configures the waves guilds are warmed up in on startup
+	 *
+	 * @param initialSize   size of the first wave, also the step by which waves grow
+	 * @param maxSize       max size of a wave
+	 * @param targetLatency avg response time above which waves get smaller
+	 * @param timeUnit      unit of the latency
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setStartupWaves(int initialSize, int maxSize, long targetLatency, TimeUnit timeUnit){
+		this.startupWaveSize = initialSize;
+		this.startupMaxWaveSize = maxSize;
+		this.startupTargetLatency = timeUnit.toMillis(targetLatency);
+		return this;
+	}
+
+	public int getStartupWaveSize(){
+		return startupWaveSize;
+	}
+
+	public int getStartupMaxWaveSize(){
+		return startupMaxWaveSize;
+	}
+
+	/**
+	 * @return target latency in ms
+	 */
+	public long getStartupTargetLatency(){
+		return startupTargetLatency;
+	}
+
+	// circuit breaker
+
+	/**
+	 * Configures when requests to a route start to fail fast
+	 *
+	 * @param failureRate       share of failed or slow responses at which a route opens, above 1 to disable
+	 * @param slowCallThreshold response time above which a response counts as slow
+	 * @param openDuration      time a route stays open before the backend gets probed
+	 * @param timeUnit          unit of the durations
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setCircuitBreaker(double failureRate, long slowCallThreshold, long openDuration, TimeUnit timeUnit){
+		this.circuitBreakerFailureRate = failureRate;
+		this.circuitBreakerSlowCallThreshold = timeUnit.toMillis(slowCallThreshold);
+		this.circuitBreakerOpenDuration = timeUnit.toMillis(openDuration);
+		return this;
+	}
+
+	public double getCircuitBreakerFailureRate(){
+		return circuitBreakerFailureRate;
+	}
+
+	/**
+	 * @return threshold in ms
+	 */
+	public long getCircuitBreakerSlowCallThreshold(){
+		return circuitBreakerSlowCallThreshold;
+	}
+
+	/**
+	 * @return duration in ms
+	 */
+	public long getCircuitBreakerOpenDuration(){
+		return circuitBreakerOpenDuration;
+	}
+
+	// snapshot
+
+	/**
+	 * Enables persisting the guild, user and license caches on shutdown so that they can be restored on the next start
+	 *
+	 * @param file     file the snapshot is written to, null to disable snapshots
+	 * @param maxAge   max age of a snapshot to be restored
+	 * @param timeUnit unit
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setCacheSnapshot(Path file, long maxAge, TimeUnit timeUnit){
+		this.cacheSnapshotFile = file;
+		this.cacheSnapshotMaxAge = timeUnit.toMillis(maxAge);
+		return this;
+	}
+
+	public Path getCacheSnapshotFile(){
+		return cacheSnapshotFile;
+	}
+
+	/**
+	 * @return max age in ms
+	 */
+	public long getCacheSnapshotMaxAge(){
+		return cacheSnapshotMaxAge;
+	}
+
+	// updates
+
+	/**
+	 * Sets the time changes made through setters are collected before they are sent as one update
+	 *
+	 * @param duration duration, 0 to send each change immediately
+	 * @param timeUnit unit
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setUpdateCoalescingWindow(long duration, TimeUnit timeUnit){
+		this.updateCoalescingWindow = timeUnit.toMillis(duration);
+		return this;
+	}
+
+	/**
+	 * @return window in ms
+	 */
+	public long getUpdateCoalescingWindow(){
+		return updateCoalescingWindow;
+	}
+
+	// execution
+
+	/**
+	 * Sets the threads used to execute actions and event handlers
+	 * <p>
+	 * Only executors created after this call will use the new mode
+	 *
+	 * @param executionMode mode
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setExecutionMode(ExecutionMode executionMode){
+		this.executionMode = executionMode;
+		return this;
+	}
+
+	public ExecutionMode getExecutionMode(){
+		return executionMode;
+	}
+
+	/**
+	 * Sets the max number of tasks each executor runs at the same time when using virtual threads
+	 *
+	 * @param virtualThreadConcurrency max number of tasks
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setVirtualThreadConcurrency(int virtualThreadConcurrency){
+		this.virtualThreadConcurrency = virtualThreadConcurrency;
+		return this;
+	}
+
+	public int getVirtualThreadConcurrency(){
+		return virtualThreadConcurrency;
+	}
+
+	// cache
+
+	/**
+	 * Sets the eviction policy used by caches of the given type
+	 * <p>
+	 * Only caches created after this call will use the new policy. Evicting an object drops the caches nested within it,
+	 * a bounded GuildCache therefore also drops the channels, roles and messages of evicted guilds.
+	 *
+	 * @param cacheClass  type of the cache, eg. MemberCache.class
+	 * @param cachePolicy policy
+	 *
+	 * @return BackendSettings
+	 */
+	public BackendSettings setCachePolicy(Class<? extends Cache<?, ?>> cacheClass, CachePolicy cachePolicy){
+		cachePolicies.put(cacheClass, cachePolicy);
+		return this;
+	}
+
+	public CachePolicy getCachePolicy(Class<?> cacheClass){
+		return cachePolicies.getOrDefault(cacheClass, CachePolicy.UNBOUNDED);
+	}
+
+	public enum ExecutionMode{
+		/**
+		 * Actions are executed by a pool of platform threads
+		 */
+		PLATFORM,
+		/**
+		 * Actions are executed on virtual threads if supported by the jvm
+		 */
+		VIRTUAL
+	}
+
+	public enum MessageCryptMode{
+		/**
+		 * Derives the key from the password for every message
+		 */
+		LEGACY,
+		/**
+		 * Derives the key from the password once and uses the salt of each message as nonce
+		 */
+		KEYED
+	}
+
+	public enum MessageContentRetention{
+		/**
+		 * Content is decrypted on every access
+		 */
+		NONE,
+		/**
+		 * Content is kept until the next garbage collection
+		 */
+		WEAK,
+		/**
+		 * Content is kept until the jvm runs low on memory
+		 */
+		SOFT
+	}
+
 }
@@ -0,0 +1,123 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.utils.shutdownhook.IShutdown;
+import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persists the guild, user and license caches including their nested caches to a gzip compressed json file
+ * <p>
+ * The snapshot is written on shutdown and restored on the next start, restored entries get revalidated against
+ * the backend on their first access. Snapshots of another client, another format version or exceeding the max age are ignored.
+ */
+public class CacheSnapshot implements IShutdown{
+
+	private static final int VERSION = 1;
+
+	private final XeniaBackendClient backendClient;
+	private final Path file;
+	private final Logger logger = LoggerFactory.getLogger(CacheSnapshot.class);
+
+	public CacheSnapshot(XeniaBackendClient backendClient, Path file){
+		this.backendClient = backendClient;
+		this.file = file;
+	}
+
+	/**
+	 * Loads the snapshot into the caches of the client, the file gets deleted afterwards so that it is not restored twice
+	 *
+	 * @return true if the snapshot has been restored
+	 */
+	public boolean restore(){
+		if(!Files.isRegularFile(file)){
+			return false;
+		}
+		BackendSettings backendSettings = backendClient.getBackendSettings();
+		try{
+			JSONObject snapshot;
+			try(Reader reader = new InputStreamReader(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))), StandardCharsets.UTF_8)){
+				snapshot = new JSONObject(new JSONTokener(reader));
+			}
+			long age = System.currentTimeMillis() - snapshot.getLong("timestamp");
+			if(snapshot.getInt("version") != VERSION || snapshot.getLong("clientId") != backendSettings.getClientId() || age > backendSettings.getCacheSnapshotMaxAge()){
+				logger.info("Ignoring Outdated Cache Snapshot " + file);
+				return false;
+			}
+			// licenses first, restoring messages looks up the license of their guild
+			int licenses = backendClient.getLicenseCache().restore(snapshot.getJSONArray("licenses"));
+			int users = backendClient.getUserCache().restore(snapshot.getJSONArray("users"));
+			int guilds = backendClient.getGuildCache().restore(snapshot.getJSONArray("guilds"));
+			logger.info("Restored Cache Snapshot From " + age + "ms Ago: " + guilds + " Guilds, " + users + " Users, " + licenses + " Licenses");
+			return true;
+		}
+		catch(Exception e){
+			logger.warn("Failed To Restore Cache Snapshot " + file, e);
+			return false;
+		}
+		finally{
+			try{
+				Files.deleteIfExists(file);
+			}
+			catch(IOException e){
+				logger.warn("Failed To Delete Cache Snapshot " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the current state of the caches, the previous snapshot gets replaced once the new one is complete
+	 *
+	 * @throws IOException on exception
+	 */
+	public void write() throws IOException{
+		JSONObject snapshot = new JSONObject()
+			.put("version", VERSION)
+			.put("timestamp", System.currentTimeMillis())
+			.put("clientId", backendClient.getBackendSettings().getClientId())
+			.put("licenses", backendClient.getLicenseCache().snapshot())
+			.put("users", backendClient.getUserCache().snapshot())
+			.put("guilds", backendClient.getGuildCache().snapshot());
+		Path parent = file.toAbsolutePath().getParent();
+		if(parent != null){
+			Files.createDirectories(parent);
+		}
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		try(Writer writer = new OutputStreamWriter(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))), StandardCharsets.UTF_8)){
+			snapshot.write(writer);
+		}
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	@Override
+	public void onShutdown() throws Exception{
+		write();
+	}
+
+}
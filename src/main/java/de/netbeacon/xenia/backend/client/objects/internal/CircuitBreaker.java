@@ -0,0 +1,234 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.xenia.backend.client.objects.apidata.system.Ping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fails requests fast while the backend does not respond properly
+ * <p>
+ * The outcome of the last requests is tracked per route (see {@link RateLimiter#route(okhttp3.Request)}). A route opens once
+ * the share of failed (5xx, timeouts, connection errors) or slow responses exceeds the threshold, requests to it fail
+ * immediately with an {@link OpenException} then. After the open duration the route becomes half open and a {@link Ping}
+ * is sent to the backend, one probe being shared by all half open routes. The route closes if the ping succeeds, else it opens again.
+ */
+public class CircuitBreaker{
+
+	private static final String PROBE_ROUTE = "GET/info/ping"; // never blocked, used for probing
+	private static final int WINDOW_SIZE = 20;
+	private static final int MIN_CALLS = 10;
+
+	private final BackendProcessor backendProcessor;
+	private final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+	private final ConcurrentHashMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+	private final AtomicReference<CompletableFuture<Boolean>> probe = new AtomicReference<>();
+	private final AtomicInteger openCircuits = new AtomicInteger();
+
+	public CircuitBreaker(BackendProcessor backendProcessor){
+		this.backendProcessor = backendProcessor;
+	}
+
+	/**
+	 * Checks whether a request may be sent on the route
+	 *
+	 * @param route of the request
+	 *
+	 * @throws OpenException if the route is open
+	 */
+	public void check(String route) throws OpenException{
+		if(PROBE_ROUTE.equals(route)){
+			return;
+		}
+		Circuit circuit = circuits.get(route);
+		if(circuit == null){
+			return;
+		}
+		switch(circuit.check(System.currentTimeMillis())){
+			case CLOSED -> {
+				return;
+			}
+			case PROBE -> probe(route, circuit);
+		}
+		throw new OpenException(route);
+	}
+
+	/**
+	 * Records the outcome of a request
+	 *
+	 * @param route    of the request
+	 * @param failure  whether the request failed
+	 * @param duration time between sending the request and receiving the response in ms
+	 */
+	public void record(String route, boolean failure, long duration){
+		if(PROBE_ROUTE.equals(route)){
+			return;
+		}
+		BackendSettings backendSettings = backendProcessor.getBackendSettings();
+		boolean slow = duration > backendSettings.getCircuitBreakerSlowCallThreshold();
+		Circuit circuit = circuits.computeIfAbsent(route, k -> new Circuit());
+		if(circuit.record(failure, slow, backendSettings.getCircuitBreakerFailureRate(), backendSettings.getCircuitBreakerOpenDuration(), System.currentTimeMillis())){
+			openCircuits.incrementAndGet();
+			logger.warn("Opened Circuit For " + route + " - Requests Fail Fast Until The Backend Responds Again");
+		}
+	}
+
+	/**
+	 * @param route of the request
+	 *
+	 * @return true if requests to the route currently fail fast
+	 */
+	public boolean isOpen(String route){
+		Circuit circuit = circuits.get(route);
+		return circuit != null && circuit.isOpen();
+	}
+
+	/**
+	 * @return true if any route currently fails fast
+	 */
+	public boolean hasOpenCircuits(){
+		return openCircuits.get() > 0;
+	}
+
+	private void probe(String route, Circuit circuit){
+		CompletableFuture<Boolean> flight = new CompletableFuture<>();
+		var running = probe.compareAndExchange(null, flight);
+		if(running == null){
+			running = flight;
+			try{
+				backendProcessor.getScalingExecutor().execute(() -> {
+					boolean online = false;
+					try{
+						online = new Ping(backendProcessor).ping();
+					}
+					finally{
+						probe.compareAndSet(flight, null);
+						flight.complete(online);
+					}
+				});
+			}
+			catch(Exception e){
+				probe.compareAndSet(flight, null);
+				flight.complete(false);
+			}
+		}
+		running.thenAccept(online -> {
+			if(online){
+				circuit.close();
+				openCircuits.decrementAndGet();
+				logger.info("Closed Circuit For " + route);
+			}
+			else{
+				circuit.reopen(backendProcessor.getBackendSettings().getCircuitBreakerOpenDuration(), System.currentTimeMillis());
+			}
+		});
+	}
+
+	private enum Decision{
+		CLOSED,
+		OPEN,
+		PROBE
+	}
+
+	private static class Circuit{
+
+		private final boolean[] failures = new boolean[WINDOW_SIZE];
+		private final boolean[] slow = new boolean[WINDOW_SIZE];
+		private int index;
+		private int count;
+		private boolean open;
+		private boolean probing;
+		private long openUntil;
+
+		private synchronized Decision check(long now){
+			if(!open){
+				return Decision.CLOSED;
+			}
+			if(probing || now < openUntil){
+				return Decision.OPEN;
+			}
+			probing = true;
+			return Decision.PROBE;
+		}
+
+		/**
+		 * @return true if the circuit has been opened
+		 */
+		private synchronized boolean record(boolean failure, boolean slowCall, double threshold, long openDuration, long now){
+			if(open){
+				return false; // responses to requests sent before opening
+			}
+			failures[index] = failure;
+			slow[index] = slowCall;
+			index = (index + 1) % WINDOW_SIZE;
+			count = Math.min(WINDOW_SIZE, count + 1);
+			if(count < MIN_CALLS){
+				return false;
+			}
+			int failed = 0;
+			int slowCalls = 0;
+			for(int i = 0; i < count; i++){
+				failed += failures[i] ? 1 : 0;
+				slowCalls += slow[i] ? 1 : 0;
+			}
+			if(failed < threshold * count && slowCalls < threshold * count){
+				return false;
+			}
+			open = true;
+			openUntil = now + openDuration;
+			return true;
+		}
+
+		private synchronized void reopen(long openDuration, long now){
+			probing = false;
+			openUntil = now + openDuration;
+		}
+
+		private synchronized void close(){
+			open = false;
+			probing = false;
+			index = 0;
+			count = 0;
+		}
+
+		private synchronized boolean isOpen(){
+			return open;
+		}
+
+	}
+
+	/**
+	 * Thrown for requests to an open route
+	 */
+	public static class OpenException extends IOException{
+
+		private static final long serialVersionUID = 1L;
+
+		public OpenException(String route){
+			super("Circuit Open For " + route + " - Backend Unavailable");
+		}
+
+	}
+
+}
@@ -0,0 +1,335 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.xenia.backend.client.objects.apidata.Channel;
+import de.netbeacon.xenia.backend.client.objects.apidata.Guild;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Loads the caches of guilds in parallel
+ * <p>
+ * The caches of a guild are split into tasks, the messages of each channel forming their own task once the channels
+ * have been loaded. Tasks of all guilds share one queue ordered by {@link Stage}, so the caches needed to handle
+ * commands get loaded before the message history of any guild. The number of tasks running at the same time is
+ * limited by the bootstrap concurrency of the backend settings.
+ */
+public class GuildBootstrap{
+
+	private final BackendProcessor backendProcessor;
+	private final Logger logger = LoggerFactory.getLogger(GuildBootstrap.class);
+	private final ReentrantLock lock = new ReentrantLock();
+	private final PriorityQueue<Task> queue = new PriorityQueue<>();
+	private final HashMap<Long, Progress> inProgress = new HashMap<>();
+	private long sequence;
+	private int running;
+
+	public GuildBootstrap(BackendProcessor backendProcessor){
+		this.backendProcessor = backendProcessor;
+	}
+
+	/**
+	 * Loads all caches of the guild, if the guild is loaded already the running bootstrap is returned
+	 *
+	 * @param guild    to load
+	 * @param listener notified after each finished task, may be null
+	 *
+	 * @return progress of the guild
+	 */
+	public Progress bootstrap(Guild guild, Consumer<Progress> listener){
+		return start(guild, listener, p -> {
+			submit(p, Stage.ROLES, () -> guild.getRoleCache().retrieveAllFromBackend(true).execute());
+			submit(p, Stage.TAGS, () -> guild.getMiscCaches().getTagCache().retrieveAllFromBackend(true).execute());
+			submit(p, Stage.CHANNELS, () -> {
+				List<Channel> channels = guild.getChannelCache().retrieveAllFromBackend(true).execute();
+				try{
+					lock.lock();
+					channels.forEach(channel -> submitMessages(p, channel));
+				}
+				finally{
+					lock.unlock();
+				}
+			});
+			submit(p, Stage.NOTIFICATIONS, () -> guild.getMiscCaches().getNotificationCache().retrieveAllFromBackend(true).execute());
+			submit(p, Stage.TWITCH_NOTIFICATIONS, () -> guild.getMiscCaches().getTwitchNotificationCache().retrieveAllFromBackend(true).execute());
+		});
+	}
+
+	/**
+	 * Loads the newest messages of the cached channels of a guild which has been restored from a snapshot
+	 * <p>
+	 * The other caches have been restored and get revalidated on access, but messages sent while the client was offline are missing
+	 *
+	 * @param guild    to load
+	 * @param listener notified after each finished task, may be null
+	 *
+	 * @return progress of the guild
+	 */
+	public Progress reloadMessages(Guild guild, Consumer<Progress> listener){
+		return start(guild, listener, p -> guild.getChannelCache().getAllAsList().forEach(channel -> submitMessages(p, channel)));
+	}
+
+	private Progress start(Guild guild, Consumer<Progress> listener, Consumer<Progress> tasks){
+		Progress progress;
+		try{
+			lock.lock();
+			progress = inProgress.get(guild.getId());
+			if(progress != null){
+				return progress;
+			}
+			progress = new Progress(guild, listener);
+			inProgress.put(guild.getId(), progress);
+			tasks.accept(progress);
+			if(progress.total == 0){
+				inProgress.remove(guild.getId(), progress);
+				progress.future.complete(guild);
+				return progress;
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+		dispatch();
+		return progress;
+	}
+
+	/**
+	 * @param guildId of the guild
+	 *
+	 * @return progress of the guild or null if it is not being loaded
+	 */
+	public Progress getProgress(long guildId){
+		try{
+			lock.lock();
+			return inProgress.get(guildId);
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of tasks waiting for a free slot
+	 */
+	public int getQueuedCount(){
+		try{
+			lock.lock();
+			return queue.size();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private void submitMessages(Progress progress, Channel channel){
+		submit(progress, Stage.MESSAGES, () -> channel.getMessageCache().retrieveAllFromBackend(true, true).execute());
+	}
+
+	private void submit(Progress progress, Stage stage, Runnable runnable){
+		progress.total++;
+		queue.add(new Task(progress, stage, sequence++, runnable));
+	}
+
+	private void dispatch(){
+		List<Task> tasks = new ArrayList<>();
+		try{
+			lock.lock();
+			int concurrency = Math.max(1, backendProcessor.getBackendSettings().getBootstrapConcurrency());
+			while(running < concurrency && !queue.isEmpty()){
+				tasks.add(queue.poll());
+				running++;
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+		for(Task task : tasks){
+			try{
+				backendProcessor.getScalingExecutor().execute(() -> run(task));
+			}
+			catch(Exception e){
+				finish(task, e);
+			}
+		}
+	}
+
+	private void run(Task task){
+		Exception failure = null;
+		try{
+			task.runnable.run();
+		}
+		catch(Exception e){
+			failure = e;
+		}
+		finish(task, failure);
+	}
+
+	private void finish(Task task, Exception failure){
+		Progress progress = task.progress;
+		boolean done;
+		try{
+			lock.lock();
+			running--;
+			if(failure != null){
+				progress.failed++;
+				if(progress.failure == null){
+					progress.failure = failure;
+				}
+			}
+			else{
+				progress.completed++;
+			}
+			done = progress.completed + progress.failed == progress.total;
+			if(done){
+				inProgress.remove(progress.guild.getId(), progress);
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+		if(failure != null){
+			logger.warn("Failed To Load " + task.stage + " Of Guild " + progress.guild.getId() + ": " + failure.getMessage());
+		}
+		if(progress.listener != null){
+			try{
+				progress.listener.accept(progress);
+			}
+			catch(Exception e){
+				logger.error("Uncaught exception on GuildBootstrap progress listener " + e);
+			}
+		}
+		if(done){
+			if(progress.failure != null){
+				progress.future.completeExceptionally(progress.failure);
+			}
+			else{
+				progress.future.complete(progress.guild);
+			}
+		}
+		dispatch();
+	}
+
+	/**
+	 * Loads of a guild, ordered by their priority
+	 */
+	public enum Stage{
+		ROLES(0),
+		TAGS(0),
+		CHANNELS(1),
+		NOTIFICATIONS(2),
+		TWITCH_NOTIFICATIONS(2),
+		MESSAGES(3);
+
+		private final int priority;
+
+		Stage(int priority){
+			this.priority = priority;
+		}
+
+		public int getPriority(){
+			return priority;
+		}
+	}
+
+	/**
+	 * Progress of loading the caches of a guild
+	 */
+	public static class Progress{
+
+		private final Guild guild;
+		private final Consumer<Progress> listener;
+		private final CompletableFuture<Guild> future = new CompletableFuture<>();
+		private final long startTime = System.currentTimeMillis();
+		// guarded by the lock of the bootstrap
+		private volatile int total;
+		private volatile int completed;
+		private volatile int failed;
+		private volatile Exception failure;
+
+		private Progress(Guild guild, Consumer<Progress> listener){
+			this.guild = guild;
+			this.listener = listener;
+		}
+
+		public Guild getGuild(){
+			return guild;
+		}
+
+		/**
+		 * @return number of tasks known so far, grows once the channels have been loaded
+		 */
+		public int getTotal(){
+			return total;
+		}
+
+		public int getCompleted(){
+			return completed;
+		}
+
+		public int getFailed(){
+			return failed;
+		}
+
+		public long getStartTime(){
+			return startTime;
+		}
+
+		public boolean isDone(){
+			return future.isDone();
+		}
+
+		/**
+		 * @return future completing once all tasks have finished, completes exceptionally with the first failure if any task failed
+		 */
+		public CompletableFuture<Guild> getFuture(){
+			return future;
+		}
+
+	}
+
+	private static class Task implements Comparable<Task>{
+
+		private final Progress progress;
+		private final Stage stage;
+		private final long sequence;
+		private final Runnable runnable;
+
+		private Task(Progress progress, Stage stage, long sequence, Runnable runnable){
+			this.progress = progress;
+			this.stage = stage;
+			this.sequence = sequence;
+			this.runnable = runnable;
+		}
+
+		@Override
+		public int compareTo(Task other){
+			int byPriority = Integer.compare(stage.priority, other.stage.priority);
+			return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import okhttp3.Headers;
+import okhttp3.Request;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side rate limiting per route
+ * <p>
+ * Each route (method and path with ids replaced) gets a token bucket once the backend reports its limits through
+ * X-RateLimit-Limit, X-RateLimit-Remaining and X-RateLimit-Reset headers, routes without such headers are not limited.
+ * A 429 response blocks the route until the time given by Retry-After, or an exponential backoff with jitter if none is given.
+ * <p>
+ * Buckets are only locked to compute the wait time, waiting happens outside of any lock so a throttled route does not affect others
+ */
+public class RateLimiter{
+
+	private static final long BASE_BACKOFF = 500;
+	private static final long MAX_BACKOFF = 30000;
+
+	private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * @param request request
+	 *
+	 * @return route the request belongs to
+	 */
+	public static String route(Request request){
+		StringBuilder route = new StringBuilder(request.method());
+		List<String> segments = request.url().pathSegments();
+		for(String segment : segments){
+			route.append('/').append(isId(segment) ? ":id" : segment);
+		}
+		return route.toString();
+	}
+
+	/**
+	 * Blocks until a request may be sent on the route
+	 *
+	 * @param route of the request
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void acquire(String route) throws InterruptedException{
+		long wait;
+		while((wait = tryAcquire(route)) > 0){
+			TimeUnit.MILLISECONDS.sleep(wait);
+		}
+	}
+
+	/**
+	 * Takes a token of the route if possible without blocking
+	 *
+	 * @param route of the request
+	 *
+	 * @return 0 if the request may be sent, else the time in ms to wait before trying again
+	 */
+	public long tryAcquire(String route){
+		Bucket bucket = buckets.get(route);
+		if(bucket == null){
+			return 0;
+		}
+		return bucket.reserve(System.currentTimeMillis());
+	}
+
+	/**
+	 * Updates the bucket of the route with the limits reported by the backend
+	 *
+	 * @param route   of the request
+	 * @param headers of the response
+	 */
+	public void update(String route, Headers headers){
+		String limit = headers.get("X-RateLimit-Limit");
+		String remaining = headers.get("X-RateLimit-Remaining");
+		if(limit == null || remaining == null){
+			return;
+		}
+		try{
+			long now = System.currentTimeMillis();
+			long resetAfter = parseReset(headers, now);
+			buckets.computeIfAbsent(route, k -> new Bucket()).update(Integer.parseInt(limit.trim()), Integer.parseInt(remaining.trim()), resetAfter, now);
+		}
+		catch(NumberFormatException ignore){
+		}
+	}
+
+	/**
+	 * Blocks the route after a 429 response
+	 *
+	 * @param route   of the request
+	 * @param headers of the response
+	 * @param attempt number of the retry, starting at 1
+	 *
+	 * @return time in ms the route is blocked for
+	 */
+	public long onTooManyRequests(String route, Headers headers, int attempt){
+		long now = System.currentTimeMillis();
+		long delay = parseRetryAfter(headers.get("Retry-After"), now);
+		if(delay < 0){
+			delay = backoff(BASE_BACKOFF, attempt);
+		}
+		buckets.computeIfAbsent(route, k -> new Bucket()).block(now + delay);
+		return delay;
+	}
+
+	/**
+	 * Exponential backoff with full jitter
+	 *
+	 * @param base    delay of the first attempt
+	 * @param attempt number of the attempt, starting at 1
+	 *
+	 * @return random delay between 0 and base * 2^(attempt - 1), at most 30s
+	 */
+	public static long backoff(long base, int attempt){
+		long max = Math.min(MAX_BACKOFF, base << Math.min(Math.max(0, attempt - 1), 16));
+		return ThreadLocalRandom.current().nextLong(max + 1);
+	}
+
+	private static boolean isId(String segment){
+		if(segment.isEmpty()){
+			return false;
+		}
+		for(int i = 0; i < segment.length(); i++){
+			if(!Character.isDigit(segment.charAt(i))){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long parseReset(Headers headers, long now){
+		String resetAfter = headers.get("X-RateLimit-Reset-After");
+		if(resetAfter != null){
+			return (long) (Double.parseDouble(resetAfter.trim()) * 1000);
+		}
+		String reset = headers.get("X-RateLimit-Reset");
+		if(reset == null){
+			return -1;
+		}
+		double value = Double.parseDouble(reset.trim());
+		if(value > 1e12){
+			return Math.max(0, (long) value - now); // epoch millis
+		}
+		if(value > 1e9){
+			return Math.max(0, (long) (value * 1000) - now); // epoch seconds
+		}
+		return (long) (value * 1000); // seconds until reset
+	}
+
+	private static long parseRetryAfter(String retryAfter, long now){
+		if(retryAfter == null){
+			return -1;
+		}
+		try{
+			return (long) (Double.parseDouble(retryAfter.trim()) * 1000);
+		}
+		catch(NumberFormatException e){
+			try{
+				return Math.max(0, ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - now);
+			}
+			catch(Exception ignore){
+				return -1;
+			}
+		}
+	}
+
+	private static class Bucket{
+
+		private int limit = -1; // unknown until reported
+		private double tokens;
+		private double refillPerMs;
+		private long lastRefill;
+		private long blockedUntil;
+
+		/**
+		 * Takes a token if possible
+		 *
+		 * @return 0 if a token has been taken, else the time to wait in ms before trying again
+		 */
+		private synchronized long reserve(long now){
+			if(now < blockedUntil){
+				return blockedUntil - now;
+			}
+			if(limit < 0){
+				return 0;
+			}
+			refill(now);
+			if(tokens >= 1){
+				tokens--;
+				return 0;
+			}
+			return refillPerMs > 0 ? Math.max(1, (long) Math.ceil((1 - tokens) / refillPerMs)) : BASE_BACKOFF;
+		}
+
+		private synchronized void update(int limit, int remaining, long resetAfter, long now){
+			this.limit = limit;
+			this.tokens = remaining;
+			this.lastRefill = now;
+			// refill linearly so that the bucket is full again once the window resets
+			this.refillPerMs = resetAfter > 0 ? (double) Math.max(1, limit - remaining) / resetAfter : 0;
+			if(remaining <= 0 && resetAfter > 0){
+				blockedUntil = Math.max(blockedUntil, now + resetAfter);
+			}
+		}
+
+		private synchronized void block(long until){
+			blockedUntil = Math.max(blockedUntil, until);
+		}
+
+		private void refill(long now){
+			if(now > lastRefill){
+				tokens = Math.min(limit, tokens + (now - lastRefill) * refillPerMs);
+				lastRefill = now;
+			}
+		}
+
+	}
+
+}
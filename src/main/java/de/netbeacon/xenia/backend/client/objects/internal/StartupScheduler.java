@@ -0,0 +1,196 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
+import de.netbeacon.xenia.backend.client.objects.apidata.Guild;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Warms up guilds in waves instead of all at once
+ * <p>
+ * Each wave retrieves its guilds with a bounded number of requests in flight and initializes them through
+ * the {@link GuildBootstrap}. The next wave starts once all guilds of the current one are ready. The wave size grows
+ * additively while the backend answers within the target latency and is halved as soon as the latency or the share
+ * of failed responses (429, 5xx, timeouts) observed during a wave exceed their limits.
+ */
+public class StartupScheduler{
+
+	private static final double MAX_ERROR_RATE = 0.05;
+
+	private final XeniaBackendClient backendClient;
+	private final Logger logger = LoggerFactory.getLogger(StartupScheduler.class);
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ArrayDeque<Long> pending = new ArrayDeque<>();
+	private final Set<Long> scheduled = new HashSet<>(); // pending or part of the running wave
+	private final ConcurrentHashMap<Long, CompletableFuture<Guild>> readiness = new ConcurrentHashMap<>();
+	private boolean running;
+	private volatile int waveSize;
+
+	public StartupScheduler(XeniaBackendClient backendClient){
+		this.backendClient = backendClient;
+		this.waveSize = Math.max(1, backendClient.getBackendSettings().getStartupWaveSize());
+	}
+
+	/**
+	 * Queues the guilds to be warmed up, guilds which are ready or queued already are skipped
+	 *
+	 * @param guildIds of the guilds
+	 *
+	 * @return future completing once all of the given guilds have been processed, regardless of whether they succeeded
+	 */
+	public CompletableFuture<Void> schedule(Collection<Long> guildIds){
+		List<CompletableFuture<Guild>> futures = new ArrayList<>(guildIds.size());
+		boolean start;
+		try{
+			lock.lock();
+			for(Long guildId : new LinkedHashSet<>(guildIds)){
+				// failed guilds get another attempt
+				var future = readiness.compute(guildId, (k, v) -> v == null || v.isCompletedExceptionally() ? new CompletableFuture<>() : v);
+				if(!future.isDone() && scheduled.add(guildId)){
+					pending.add(guildId);
+				}
+				futures.add(future);
+			}
+			start = !running && !pending.isEmpty();
+			running |= start;
+		}
+		finally{
+			lock.unlock();
+		}
+		if(start){
+			backendClient.getBackendProcessor().getScalingExecutor().execute(this::run);
+		}
+		return CompletableFuture.allOf(futures.stream().map(future -> future.handle((guild, throwable) -> null)).toArray(CompletableFuture[]::new));
+	}
+
+	/**
+	 * Returns the readiness signal of a guild
+	 * <p>
+	 * The future completes once the guild has been retrieved and all its caches have been loaded. If the guild has not
+	 * been scheduled yet the future completes once it gets scheduled and warmed up.
+	 *
+	 * @param guildId of the guild
+	 *
+	 * @return future of the guild
+	 */
+	public CompletableFuture<Guild> getReadiness(long guildId){
+		return readiness.computeIfAbsent(guildId, k -> new CompletableFuture<>());
+	}
+
+	public boolean isReady(long guildId){
+		var future = readiness.get(guildId);
+		return future != null && future.isDone() && !future.isCompletedExceptionally();
+	}
+
+	/**
+	 * @return number of guilds waiting for their wave
+	 */
+	public int getPendingCount(){
+		try{
+			lock.lock();
+			return pending.size();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	public int getWaveSize(){
+		return waveSize;
+	}
+
+	private void run(){
+		while(true){
+			List<Long> wave = new ArrayList<>();
+			try{
+				lock.lock();
+				while(wave.size() < waveSize && !pending.isEmpty()){
+					wave.add(pending.poll());
+				}
+				if(wave.isEmpty()){
+					running = false;
+					return;
+				}
+			}
+			finally{
+				lock.unlock();
+			}
+			try{
+				runWave(wave);
+			}
+			catch(Exception e){
+				logger.error("Failed To Warm Up Wave Of " + wave.size() + " Guilds", e);
+			}
+		}
+	}
+
+	private void runWave(List<Long> wave){
+		BackendProcessor backendProcessor = backendClient.getBackendProcessor();
+		long responses = backendProcessor.getResponseCount();
+		long failedResponses = backendProcessor.getFailedResponseCount();
+		long responseTime = backendProcessor.getResponseTimeSum();
+		List<CompletableFuture<Guild>> initializations = new ArrayList<>(wave.size());
+		try{
+			Set<Long> missing = new HashSet<>(wave);
+			for(Guild guild : backendClient.getGuildCache().retrieveMany(wave, true).execute()){
+				missing.remove(guild.getId());
+				var future = readiness.get(guild.getId());
+				initializations.add(guild.initialize(null).whenComplete((g, throwable) -> {
+					if(throwable != null){
+						future.completeExceptionally(throwable);
+					}
+					else{
+						future.complete(g);
+					}
+				}));
+			}
+			missing.forEach(id -> readiness.get(id).completeExceptionally(new CacheException(CacheException.Type.NOT_FOUND, "Guild " + id + " Does Not Exist")));
+			CompletableFuture.allOf(initializations.toArray(CompletableFuture[]::new)).handle((unused, throwable) -> null).join();
+		}
+		catch(Exception e){
+			wave.forEach(id -> readiness.get(id).completeExceptionally(e));
+		}
+		try{
+			lock.lock();
+			scheduled.removeAll(wave);
+		}
+		finally{
+			lock.unlock();
+		}
+		// adjust the size of the next wave to what the backend handled during this one
+		long responseDelta = Math.max(1, backendProcessor.getResponseCount() - responses);
+		double errorRate = (double) (backendProcessor.getFailedResponseCount() - failedResponses) / responseDelta;
+		long latency = (backendProcessor.getResponseTimeSum() - responseTime) / responseDelta;
+		BackendSettings backendSettings = backendClient.getBackendSettings();
+		if(errorRate > MAX_ERROR_RATE || latency > backendSettings.getStartupTargetLatency()){
+			waveSize = Math.max(1, waveSize / 2);
+		}
+		else{
+			waveSize = Math.min(Math.max(1, backendSettings.getStartupMaxWaveSize()), waveSize + Math.max(1, backendSettings.getStartupWaveSize()));
+		}
+		logger.debug("Warmed Up " + wave.size() + " Guilds (latency " + latency + "ms, error rate " + errorRate + "), next wave size " + waveSize);
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.utils.concurrency.executor.ScalingExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor running each task on its own virtual thread
+ * <p>
+ * Blocking calls such as synchronous backend requests only park the virtual thread, so a large number of them
+ * can be in flight without the same number of platform threads. The number of tasks running at the same time is
+ * limited by a semaphore, tasks exceeding the limit wait on their (cheap) virtual thread.
+ * <p>
+ * Virtual threads are looked up at runtime, on jvms not providing them this behaves like a regular {@link ScalingExecutor}
+ */
+public class VirtualThreadExecutor extends ScalingExecutor{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+	private static final ThreadFactory VIRTUAL_THREAD_FACTORY = lookupVirtualThreadFactory();
+
+	private final Semaphore permits;
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicBoolean shutdown = new AtomicBoolean();
+	private final Object terminationMonitor = new Object();
+
+	/**
+	 * @param maxConcurrency max number of tasks running at the same time
+	 * @param fallbackCore   core threads used if virtual threads are not supported
+	 * @param fallbackMax    max threads used if virtual threads are not supported
+	 */
+	public VirtualThreadExecutor(int maxConcurrency, int fallbackCore, int fallbackMax){
+		super(fallbackCore, fallbackMax, -1, 30, TimeUnit.SECONDS);
+		this.permits = new Semaphore(maxConcurrency);
+		if(VIRTUAL_THREAD_FACTORY == null){
+			LOGGER.warn("Virtual threads are not supported by this jvm, using platform threads instead");
+		}
+	}
+
+	public static boolean isSupported(){
+		return VIRTUAL_THREAD_FACTORY != null;
+	}
+
+	@Override
+	public void execute(Runnable runnable){
+		if(VIRTUAL_THREAD_FACTORY == null){
+			super.execute(runnable);
+			return;
+		}
+		if(shutdown.get()){
+			throw new RejectedExecutionException("Executor has been shut down");
+		}
+		active.incrementAndGet();
+		Thread thread = VIRTUAL_THREAD_FACTORY.newThread(() -> {
+			try{
+				permits.acquire();
+				try{
+					runnable.run();
+				}
+				finally{
+					permits.release();
+				}
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			finally{
+				if(active.decrementAndGet() == 0){
+					synchronized(terminationMonitor){
+						terminationMonitor.notifyAll();
+					}
+				}
+			}
+		});
+		thread.start();
+	}
+
+	@Override
+	public void shutdown(){
+		shutdown.set(true);
+		super.shutdown();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException{
+		long nanos = unit.toNanos(timeout);
+		synchronized(terminationMonitor){
+			while(active.get() > 0){
+				if(nanos <= 0){
+					return false;
+				}
+				long start = System.nanoTime();
+				TimeUnit.NANOSECONDS.timedWait(terminationMonitor, nanos);
+				nanos -= System.nanoTime() - start;
+			}
+		}
+		return super.awaitTermination(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Builds a factory for virtual threads through reflection as they are not part of the api level this is compiled against
+	 *
+	 * @return factory or null if not supported
+	 */
+	private static ThreadFactory lookupVirtualThreadFactory(){
+		try{
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "VirtualThreadExecutor-", 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+		}
+		catch(Exception | LinkageError e){
+			return null;
+		}
+	}
+
+}
@@ -64,6 +64,7 @@ public class BackendRequest{
 		GET,
 		PUT,
 		POST,
+		PATCH,
 		DELETE
 	}
 
@@ -16,33 +16,52 @@
 
 package de.netbeacon.xenia.backend.client.objects.internal.objects;
 
+import de.netbeacon.utils.bitflags.IntegerBitFlags;
+import de.netbeacon.utils.bitflags.LongBitFlags;
+import de.netbeacon.utils.collections.ObservedList;
+import de.netbeacon.utils.collections.ObservedSet;
 import de.netbeacon.utils.concurrency.action.ExecutionAction;
 import de.netbeacon.utils.concurrency.action.ExecutionException;
 import de.netbeacon.utils.concurrency.action.imp.SupplierExecutionAction;
 import de.netbeacon.utils.json.serial.IJSONSerializable;
 import de.netbeacon.utils.json.serial.JSONSerializationException;
-import de.netbeacon.utils.json.test.JSONEQ;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
 import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
 import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckReturnValue;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSONSerializable{
 
+	private static final int MAX_UNSTABLE_RETRIES = 10;
+	private static final long UNSTABLE_RETRY_DELAY = 10; // ms, doubled per attempt
 	private final BackendProcessor backendProcessor;
 	private final List<BackendPathArg> backendPath = new ArrayList<>();
 	private final Logger logger = LoggerFactory.getLogger(APIDataObject.class);
 	private final ArrayList<APIDataEventListener<T>> apiDataEventListeners = new ArrayList<>();
 	private final AtomicBoolean isStable = new AtomicBoolean(true);
+	private final AtomicLong dirtyFields = new AtomicLong(); // bit mask of DataField ordinals changed since the last sync
+	private final AtomicLong modifications = new AtomicLong(); // increased on every markDirty
 	private long lastRequestDuration;
+	// write behind
+	private final ReentrantLock updateLock = new ReentrantLock();
+	private CompletableFuture<T> pendingUpdate;
+	private CompletableFuture<T> runningUpdate = CompletableFuture.completedFuture(null);
 
 	private JSONObject shadowCopy; // contains the object last returned from the backend
 
@@ -60,7 +79,7 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 		if(!getSupportedFeatures().contains(FeatureSet.Values.GET)){
 			return new SupplierExecutionAction<T>(backendProcessor.getScalingExecutor(), () -> {throw new ExecutionException(new UnsupportedOperationException());});
 		}
-		return process(securityOverride, BackendRequest.Method.GET, null, null);
+		return process(securityOverride, BackendRequest.Method.GET, null, null, 0);
 	}
 
 	@CheckReturnValue
@@ -73,7 +92,7 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 		if(!getSupportedFeatures().contains(FeatureSet.Values.CREATE)){
 			return new SupplierExecutionAction<T>(backendProcessor.getScalingExecutor(), () -> {throw new ExecutionException(new UnsupportedOperationException());});
 		}
-		return process(securityOverride, BackendRequest.Method.POST, null, asJSON());
+		return process(securityOverride, BackendRequest.Method.POST, null, asJSON(), -1L);
 	}
 
 	@CheckReturnValue
@@ -88,7 +107,7 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 		}
 		return process(securityOverride, BackendRequest.Method.POST, new HashMap<>(){{
 			put("goc", "true");
-		}}, asJSON());
+		}}, asJSON(), -1L);
 	}
 
 	@CheckReturnValue
@@ -101,10 +120,123 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 		if(!getSupportedFeatures().contains(FeatureSet.Values.UPDATE)){
 			return new SupplierExecutionAction<T>(backendProcessor.getScalingExecutor(), () -> {throw new ExecutionException(new UnsupportedOperationException());});
 		}
-		if(!hasChanges()){
+		long dirty = dirtyFields.get();
+		if(shadowCopy != null && dirty == 0){
 			return new SupplierExecutionAction<>(backendProcessor.getScalingExecutor(), () -> (T) this);
 		}
-		return process(securityOverride, BackendRequest.Method.PUT, null, asJSON());
+		if(shadowCopy != null && getSupportedFeatures().contains(FeatureSet.Values.PATCH) && !backendProcessor.isUnsupported(patchRouteName())){
+			JSONObject delta = asDelta(dirty);
+			if(delta.isEmpty()){
+				// fields have been set to the values they already had
+				clearDirty(dirty);
+				return new SupplierExecutionAction<>(backendProcessor.getScalingExecutor(), () -> (T) this);
+			}
+			return process(securityOverride, BackendRequest.Method.PATCH, null, delta, dirty);
+		}
+		// the whole object gets replaced, so all fields are sent but only those dirty until now count as synced
+		return process(securityOverride, BackendRequest.Method.PUT, null, asJSON(), dirty);
+	}
+
+	/**
+	 * Schedules an update of this object
+	 * <p>
+	 * All changes made within the update coalescing window of the backend settings are sent as one update.
+	 * Updates wait for the previous one of this object to finish. If another request of this object is running (eg. a retrieval),
+	 * the update is retried with an increasing delay instead of failing for the object being unstable.
+	 *
+	 * @return future completing once the changes have been sent to the backend
+	 */
+	public CompletableFuture<T> queueUpdate(){
+		CompletableFuture<T> future;
+		try{
+			updateLock.lock();
+			if(pendingUpdate != null){
+				return pendingUpdate;
+			}
+			future = pendingUpdate = new CompletableFuture<>();
+		}
+		finally{
+			updateLock.unlock();
+		}
+		long window = backendProcessor.getBackendSettings().getUpdateCoalescingWindow();
+		if(window > 0){
+			backendProcessor.getScheduledExecutor().schedule(this::flushUpdate, window, TimeUnit.MILLISECONDS);
+		}
+		else{
+			flushUpdate();
+		}
+		return future;
+	}
+
+	/**
+	 * Delays queued updates of this object until the stage completed, eg. while the object is still being created
+	 *
+	 * @param stage to wait for, its outcome does not matter
+	 */
+	public void orderUpdatesAfter(CompletableFuture<?> stage){
+		try{
+			updateLock.lock();
+			CompletableFuture<T> previous = runningUpdate;
+			runningUpdate = previous.handle((unused, throwable) -> (T) null).thenCompose(unused -> stage.handle((result, throwable) -> (T) null));
+		}
+		finally{
+			updateLock.unlock();
+		}
+	}
+
+	private void flushUpdate(){
+		CompletableFuture<T> future;
+		CompletableFuture<T> previous;
+		try{
+			updateLock.lock();
+			future = pendingUpdate;
+			pendingUpdate = null;
+			if(future == null){
+				return;
+			}
+			previous = runningUpdate;
+			runningUpdate = future;
+		}
+		finally{
+			updateLock.unlock();
+		}
+		previous.whenComplete((unused, throwable) -> sendQueuedUpdate(future, 0));
+	}
+
+	private boolean hasQueuedUpdate(){
+		try{
+			updateLock.lock();
+			return pendingUpdate != null || !runningUpdate.isDone();
+		}
+		finally{
+			updateLock.unlock();
+		}
+	}
+
+	private void sendQueuedUpdate(CompletableFuture<T> future, int attempt){
+		CompletableFuture<T> update;
+		try{
+			update = updateAsync();
+		}
+		catch(Exception e){
+			update = CompletableFuture.failedFuture(e);
+		}
+		update.whenComplete((result, throwable) -> {
+			if(throwable == null){
+				future.complete(result);
+				return;
+			}
+			Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+			if(cause instanceof DataException dataException && dataException.getType() == DataException.Type.UNSTABLE && attempt < MAX_UNSTABLE_RETRIES){
+				// another request of this object is running, the changes are still marked as dirty so try again once it should have finished
+				try{
+					backendProcessor.getScheduledExecutor().schedule(() -> sendQueuedUpdate(future, attempt + 1), UNSTABLE_RETRY_DELAY << Math.min(attempt, 6), TimeUnit.MILLISECONDS);
+					return;
+				}
+				catch(RejectedExecutionException ignore){}
+			}
+			future.completeExceptionally(cause);
+		});
 	}
 
 	@CheckReturnValue
@@ -117,59 +249,458 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 		if(!getSupportedFeatures().contains(FeatureSet.Values.DELETE)){
 			return new SupplierExecutionAction<T>(backendProcessor.getScalingExecutor(), () -> {throw new ExecutionException(new UnsupportedOperationException());});
 		}
-		return process(securityOverride, BackendRequest.Method.DELETE, null, null);
+		return process(securityOverride, BackendRequest.Method.DELETE, null, null, 0);
 	}
 
 
-	private ExecutionAction<T> process(boolean securityOverride, BackendRequest.Method method, HashMap<String, String> queryParams, JSONObject payload){
+	// async
+
+	/*
+	 * The *Async methods are built on non blocking requests and dont occupy a thread of the scaling executor while waiting
+	 * for the backend, dependent stages run on the scaling executor once the response arrived
+	 */
+
+	public CompletableFuture<T> getAsync(){
+		return getAsync(false);
+	}
+
+	public CompletableFuture<T> getAsync(boolean securityOverride){
+		if(!getSupportedFeatures().contains(FeatureSet.Values.GET)){
+			return CompletableFuture.failedFuture(new UnsupportedOperationException());
+		}
+		return processFuture(securityOverride, BackendRequest.Method.GET, null, null, 0);
+	}
+
+	public CompletableFuture<T> createAsync(){
+		return createAsync(false);
+	}
+
+	public CompletableFuture<T> createAsync(boolean securityOverride){
+		if(!getSupportedFeatures().contains(FeatureSet.Values.CREATE)){
+			return CompletableFuture.failedFuture(new UnsupportedOperationException());
+		}
+		return processFuture(securityOverride, BackendRequest.Method.POST, null, asJSON(), -1L);
+	}
+
+	public CompletableFuture<T> getOrCreateAsync(){
+		return getOrCreateAsync(false);
+	}
+
+	public CompletableFuture<T> getOrCreateAsync(boolean securityOverride){
+		if(!getSupportedFeatures().contains(FeatureSet.Values.GET_OR_CREATE)){
+			return CompletableFuture.failedFuture(new UnsupportedOperationException());
+		}
+		return processFuture(securityOverride, BackendRequest.Method.POST, new HashMap<>(){{
+			put("goc", "true");
+		}}, asJSON(), -1L);
+	}
+
+	public CompletableFuture<T> updateAsync(){
+		return updateAsync(false);
+	}
+
+	public CompletableFuture<T> updateAsync(boolean securityOverride){
+		if(!getSupportedFeatures().contains(FeatureSet.Values.UPDATE)){
+			return CompletableFuture.failedFuture(new UnsupportedOperationException());
+		}
+		long dirty = dirtyFields.get();
+		if(shadowCopy != null && dirty == 0){
+			return CompletableFuture.completedFuture((T) this);
+		}
+		if(shadowCopy != null && getSupportedFeatures().contains(FeatureSet.Values.PATCH) && !backendProcessor.isUnsupported(patchRouteName())){
+			JSONObject delta = asDelta(dirty);
+			if(delta.isEmpty()){
+				clearDirty(dirty);
+				return CompletableFuture.completedFuture((T) this);
+			}
+			return processFuture(securityOverride, BackendRequest.Method.PATCH, null, delta, dirty);
+		}
+		return processFuture(securityOverride, BackendRequest.Method.PUT, null, asJSON(), dirty);
+	}
+
+	public CompletableFuture<T> deleteAsync(){
+		return deleteAsync(false);
+	}
+
+	public CompletableFuture<T> deleteAsync(boolean securityOverride){
+		if(!getSupportedFeatures().contains(FeatureSet.Values.DELETE)){
+			return CompletableFuture.failedFuture(new UnsupportedOperationException());
+		}
+		return processFuture(securityOverride, BackendRequest.Method.DELETE, null, null, 0);
+	}
+
+	private ExecutionAction<T> process(boolean securityOverride, BackendRequest.Method method, HashMap<String, String> queryParams, JSONObject payload, long syncedFields){
 		Supplier<T> fun = () -> {
 			try{
-				if(!isStable.compareAndSet(true, false) && !securityOverride){
-					throw new DataException(DataException.Type.UNSTABLE, 0, "Failed To " + method + " APIDataObject With Path " + Arrays.toString(getBackendPath().toArray()));
-				}
+				acquire(securityOverride, method);
 				BackendRequest backendRequest = new BackendRequest(method, BackendRequest.AuthType.BEARER, getBackendPath(), queryParams, payload);
 				BackendResult backendResult = backendProcessor.process(backendRequest);
-				if(backendResult.getStatusCode() > 299 || backendResult.getStatusCode() < 200){
-					throw new DataException(DataException.Type.HTTP, backendResult.getStatusCode(), "Failed To " + method + " APIDataObject With Path " + Arrays.toString(getBackendPath().toArray()));
-				}
-				if(backendResult.getStatusCode() != 204){
-					shadowCopy = backendResult.getPayloadAsJSON();
-					fromJSON(shadowCopy);
-				}
-				lastRequestDuration = backendResult.getRequestDuration();
-				switch(method){
-					case GET -> this.onRetrieval();
-					case POST -> this.onCreation();
-					case PUT -> this.onUpdate();
-					case DELETE -> this.onDeletion();
+				JSONObject sent = payload;
+				if(method == BackendRequest.Method.PATCH && isPatchRejected(backendResult)){
+					// route does not know partial updates, send the whole object instead
+					sent = asJSON();
+					backendResult = backendProcessor.process(new BackendRequest(BackendRequest.Method.PUT, BackendRequest.AuthType.BEARER, getBackendPath(), queryParams, sent));
+					onPatchFallback(backendResult);
 				}
-				return (T) this;
+				return apply(method, backendResult, sent, syncedFields);
 			}
 			catch(Exception e){
 				this.restore();
 				throw e;
 			}
 			finally{
-				if(!securityOverride){
-					isStable.set(true);
-				}
+				release(securityOverride);
 			}
 		};
 		return new SupplierExecutionAction<>(backendProcessor.getScalingExecutor(), fun);
 	}
 
+	private CompletableFuture<T> processFuture(boolean securityOverride, BackendRequest.Method method, HashMap<String, String> queryParams, JSONObject payload, long syncedFields){
+		try{
+			acquire(securityOverride, method);
+		}
+		catch(DataException e){
+			return CompletableFuture.failedFuture(e);
+		}
+		return backendProcessor.processFuture(new BackendRequest(method, BackendRequest.AuthType.BEARER, getBackendPath(), queryParams, payload))
+			.thenCompose(backendResult -> {
+				if(method == BackendRequest.Method.PATCH && isPatchRejected(backendResult)){
+					// route does not know partial updates, send the whole object instead
+					JSONObject sent = asJSON();
+					return backendProcessor.processFuture(new BackendRequest(BackendRequest.Method.PUT, BackendRequest.AuthType.BEARER, getBackendPath(), queryParams, sent))
+						.thenApply(fallbackResult -> {
+							onPatchFallback(fallbackResult);
+							return apply(method, fallbackResult, sent, syncedFields);
+						});
+				}
+				return CompletableFuture.completedFuture(apply(method, backendResult, payload, syncedFields));
+			})
+			.whenComplete((unused, throwable) -> {
+				if(throwable != null){
+					this.restore();
+				}
+				release(securityOverride);
+			});
+	}
+
+	/**
+	 * Applies the state of this object after it has been created on the backend as part of a bulk request
+	 * <p>
+	 * Changes made after the json has been taken are kept and stay marked as dirty for the update queued behind the creation
+	 *
+	 * @param jsonObject        state returned by the backend or the json which has been sent
+	 * @param modificationCount as returned by {@link #getModificationCount()} before the json has been taken
+	 */
+	public void onBulkCreation(JSONObject jsonObject, long modificationCount){
+		JSONObject state = jsonObject;
+		boolean modified = modifications.get() != modificationCount;
+		if(modified){
+			JSONObject local = asDirtyJSON();
+			state = new JSONObject(jsonObject.toString());
+			for(var key : local.keySet()){
+				state.put(key, local.get(key));
+			}
+		}
+		shadowCopy = asShadowCopy(jsonObject);
+		fromJSON(state);
+		if(!modified){
+			clearDirty(-1L);
+		}
+		this.onCreation();
+	}
+
+	/**
+	 * Restores the object from a snapshot of a previous session without contacting the backend
+	 *
+	 * @param jsonObject as returned by {@link #asJSON()}
+	 */
+	protected void onRestore(JSONObject jsonObject){
+		shadowCopy = asShadowCopy(jsonObject);
+		fromJSON(jsonObject);
+		clearDirty(-1L);
+	}
+
+	/**
+	 * Reduces the state kept as shadow copy to what is needed to tell whether fields changed
+	 * <p>
+	 * Applied to the state of the backend when it is kept and to the local state before both get compared.
+	 * Objects reducing their state need to accept the reduced state in {@link #fromJSON(JSONObject)}, as failed requests revert to it
+	 *
+	 * @param jsonObject state, must not be modified
+	 *
+	 * @return reduced state or the given one
+	 */
+	protected JSONObject asShadowCopy(JSONObject jsonObject){
+		return jsonObject;
+	}
+
+	/**
+	 * Used to persist nested data such as sub caches together with the object
+	 *
+	 * @return nested data or null if there is none
+	 */
+	protected JSONObject asNestedSnapshot(){
+		return null;
+	}
+
+	/**
+	 * Restores nested data, called after the object itself has been restored and added to its cache
+	 *
+	 * @param jsonObject as returned by {@link #asNestedSnapshot()}
+	 */
+	protected void restoreNestedSnapshot(JSONObject jsonObject){}
+
+	/**
+	 * Cheap estimation of the heap used by this object, used to weigh cache entries
+	 *
+	 * @return estimated bytes
+	 */
+	public long estimateWeight(){
+		return 256;
+	}
+
+	private void acquire(boolean securityOverride, BackendRequest.Method method){
+		if(!securityOverride && !isStable.compareAndSet(true, false)){
+			throw new DataException(DataException.Type.UNSTABLE, 0, "Failed To " + method + " APIDataObject With Path " + Arrays.toString(getBackendPath().toArray()));
+		}
+	}
+
+	private void release(boolean securityOverride){
+		if(!securityOverride){
+			isStable.set(true);
+		}
+	}
+
+	private boolean isPatchRejected(BackendResult backendResult){
+		return backendResult.getStatusCode() == 404 || backendResult.getStatusCode() == 405 || backendResult.getStatusCode() == 501;
+	}
 
+	private void onPatchFallback(BackendResult backendResult){
+		if(backendResult.getStatusCode() >= 200 && backendResult.getStatusCode() <= 299){
+			backendProcessor.markUnsupported(patchRouteName());
+			logger.debug("Partial updates are not supported for " + getClass().getSimpleName() + ", using full updates from now on");
+		}
+	}
+
+	private String patchRouteName(){
+		return "patch/" + getClass().getName();
+	}
+
+	private T apply(BackendRequest.Method method, BackendResult backendResult, JSONObject sent, long syncedFields){
+		if(backendResult.getStatusCode() > 299 || backendResult.getStatusCode() < 200){
+			throw new DataException(DataException.Type.HTTP, backendResult.getStatusCode(), "Failed To " + method + " APIDataObject With Path " + Arrays.toString(getBackendPath().toArray()));
+		}
+		long keep = 0;
+		if(backendResult.getStatusCode() != 204){
+			JSONObject state = backendResult.getPayloadAsJSON();
+			JSONObject local = method == BackendRequest.Method.GET && hasQueuedUpdate() ? asDirtyJSON() : null;
+			shadowCopy = asShadowCopy(state);
+			if(local != null && !local.isEmpty()){
+				// changes waiting for a queued update must not be overwritten by a retrieval running at the same time
+				state = new JSONObject(state.toString());
+				for(var key : local.keySet()){
+					state.put(key, local.get(key));
+				}
+				for(var field : getDataFields()){
+					if(local.has(field.getKey())){
+						keep |= 1L << field.ordinal();
+					}
+				}
+			}
+			fromJSON(state);
+		}
+		else if(shadowCopy != null && sent != null && (method == BackendRequest.Method.PUT || method == BackendRequest.Method.PATCH)){
+			// no content returned, keep the shadow copy in sync with what has been sent
+			for(var key : sent.keySet()){
+				shadowCopy.put(key, sent.get(key));
+			}
+			shadowCopy = asShadowCopy(shadowCopy);
+		}
+		clearDirty(method == BackendRequest.Method.GET ? ~keep : syncedFields); // retrieval overwrites local changes which are not queued
+		lastRequestDuration = backendResult.getRequestDuration();
+		switch(method){
+			case GET -> this.onRetrieval();
+			case POST -> this.onCreation();
+			case PUT, PATCH -> this.onUpdate();
+			case DELETE -> this.onDeletion();
+		}
+		return (T) this;
+	}
+
+
+	/**
+	 * Checks whether this object differs from the state last synced with the backend
+	 *
+	 * @return true if there are changes
+	 */
 	public boolean hasChanges(){
-		if(shadowCopy == null){
-			return true;
+		return shadowCopy == null || dirtyFields.get() != 0;
+	}
+
+	/**
+	 * Marks the field as dirty whenever the flags are modified in place
+	 *
+	 * @param flags flags of the field
+	 * @param field field
+	 * @param <F>   flags
+	 *
+	 * @return flags
+	 */
+	protected <F extends IntegerBitFlags> F track(F flags, DataField field){
+		flags.setChangeListener(() -> markDirty(field));
+		return flags;
+	}
+
+	/**
+	 * Marks the field as dirty whenever the flags are modified in place
+	 *
+	 * @param flags flags of the field
+	 * @param field field
+	 * @param <F>   flags
+	 *
+	 * @return flags
+	 */
+	protected <F extends LongBitFlags> F track(F flags, DataField field){
+		flags.setChangeListener(() -> markDirty(field));
+		return flags;
+	}
+
+	/**
+	 * Wraps the set to mark the field as dirty whenever it is modified in place
+	 *
+	 * @param set   set of the field
+	 * @param field field
+	 * @param <E>   element
+	 *
+	 * @return wrapped set
+	 */
+	protected <E> Set<E> track(Set<E> set, DataField field){
+		return new ObservedSet<>(set, () -> markDirty(field));
+	}
+
+	/**
+	 * Wraps the list to mark the field as dirty whenever it is modified in place
+	 *
+	 * @param list  list of the field
+	 * @param field field
+	 * @param <E>   element
+	 *
+	 * @return wrapped list
+	 */
+	protected <E> List<E> track(List<E> list, DataField field){
+		return new ObservedList<>(list, () -> markDirty(field));
+	}
+
+	/**
+	 * Marks fields as changed
+	 * <p>
+	 * This is done by all lSet* methods, fields which can be modified in place are tracked (see track(..)) to do so on their own
+	 *
+	 * @param fields which have been changed
+	 */
+	public void markDirty(DataField... fields){
+		long mask = 0;
+		for(var field : fields){
+			mask |= 1L << field.ordinal();
+		}
+		dirtyFields.accumulateAndGet(mask, (a, b) -> a | b);
+		modifications.incrementAndGet();
+	}
+
+	/**
+	 * @return counter increased by every change marked, used to tell whether the object changed while a request was running
+	 */
+	public long getModificationCount(){
+		return modifications.get();
+	}
+
+	public boolean isDirty(DataField field){
+		return (dirtyFields.get() & (1L << field.ordinal())) != 0;
+	}
+
+	/**
+	 * @return json containing only the top level keys of the fields marked as dirty
+	 */
+	public JSONObject asDirtyJSON() throws JSONSerializationException{
+		long dirty = dirtyFields.get();
+		JSONObject delta = new JSONObject();
+		if(dirty == 0){
+			return delta;
+		}
+		JSONObject full = asJSON();
+		for(var field : getDataFields()){
+			if((dirty & (1L << field.ordinal())) != 0 && full.has(field.getKey())){
+				delta.put(field.getKey(), full.get(field.getKey()));
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * Builds the top level keys of the dirty fields which differ from the shadow copy
+	 *
+	 * @param dirty bit mask of dirty fields
+	 *
+	 * @return delta
+	 */
+	private JSONObject asDelta(long dirty) throws JSONSerializationException{
+		JSONObject delta = new JSONObject();
+		JSONObject shadow = shadowCopy;
+		JSONObject full = asJSON();
+		JSONObject comparable = shadow != null ? asShadowCopy(full) : full;
+		for(var field : getDataFields()){
+			if((dirty & (1L << field.ordinal())) == 0 || delta.has(field.getKey()) || !full.has(field.getKey())){
+				continue;
+			}
+			if(shadow == null || !isSimilar(comparable.opt(field.getKey()), shadow.opt(field.getKey()))){
+				delta.put(field.getKey(), full.get(field.getKey()));
+			}
 		}
-		return !JSONEQ.equals(asJSON(), shadowCopy);
+		return delta;
+	}
+
+	private static boolean isSimilar(Object a, Object b){
+		if(a == null || b == null){
+			return a == b;
+		}
+		if(a instanceof JSONObject jsonObject){
+			return jsonObject.similar(b);
+		}
+		if(a instanceof JSONArray jsonArray){
+			return jsonArray.similar(b) || (b instanceof JSONArray other && isSimilarUnordered(jsonArray, other));
+		}
+		if(a instanceof Number && b instanceof Number){
+			// parsed values may be of a different type than local ones
+			return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString())) == 0;
+		}
+		return a.equals(b);
+	}
+
+	private static boolean isSimilarUnordered(JSONArray a, JSONArray b){
+		// sets (eg. role ids) are serialized in hash order, which does not need to match the order of the backend
+		if(a.length() != b.length()){
+			return false;
+		}
+		List<String> la = new ArrayList<>(a.length());
+		List<String> lb = new ArrayList<>(b.length());
+		for(int i = 0; i < a.length(); i++){
+			la.add(String.valueOf(a.opt(i)));
+			lb.add(String.valueOf(b.opt(i)));
+		}
+		Collections.sort(la);
+		Collections.sort(lb);
+		return la.equals(lb);
+	}
+
+	private void clearDirty(long fields){
+		dirtyFields.accumulateAndGet(fields, (a, b) -> a & ~b);
 	}
 
 	public synchronized void restore(){
 		if(shadowCopy != null){
 			this.fromJSON(shadowCopy);
 			this.shadowCopy = null;
+			this.dirtyFields.set(0);
 		}
 	}
 
@@ -275,6 +806,7 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 			GET_OR_CREATE,
 			CREATE,
 			UPDATE,
+			PATCH, // partial updates, falls back to UPDATE if the backend does not support it
 			DELETE
 		}
 
@@ -284,6 +816,27 @@ public abstract class APIDataObject<T extends APIDataObject<T>> implements IJSON
 
 	}
 
+	/**
+	 * Field of an object which can be marked as dirty, implemented by an enum of each object
+	 */
+	public interface DataField{
+
+		int ordinal();
+
+		/**
+		 * @return top level json key containing this field
+		 */
+		String getKey();
+
+	}
+
 	protected abstract Set<FeatureSet.Values> getSupportedFeatures();
 
+	/**
+	 * @return all fields which can be modified locally
+	 */
+	protected DataField[] getDataFields(){
+		return new DataField[0];
+	}
+
 }
@@ -17,54 +17,87 @@
 package de.netbeacon.xenia.backend.client.objects.internal.objects;
 
 import de.netbeacon.utils.concurrency.action.ExecutionAction;
+import de.netbeacon.utils.concurrency.action.imp.SupplierExecutionAction;
 import de.netbeacon.utils.concurrency.block.ReentrantBlock;
 import de.netbeacon.utils.concurrency.provider.IDBasedProvider;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.CacheException;
+import de.netbeacon.xenia.backend.client.objects.internal.exceptions.DataException;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.CheckReturnValue;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 public abstract class Cache<K, T extends APIDataObject<T>>{
 
+	private static final int LOCK_STRIPES = 64; // power of two
+	private static final int EVICTION_BATCH = 64; // max entries evicted per write
+	private static final int FAN_OUT_PARALLELISM = 8; // single requests in flight when retrieving multiple objects
+
 	private final BackendProcessor backendProcessor;
-	private final ConcurrentHashMap<K, T> dataMap = new ConcurrentHashMap<>();
-	private final ConcurrentHashMap<T, K> inverseDataMap = new ConcurrentHashMap<>();
-	private final ArrayList<K> orderedKeyMap = new ArrayList<>();
-	private final ArrayList<CacheEventListener<K, T>> cacheListeners = new ArrayList<>();
+	private final CachePolicy cachePolicy;
+	private final CacheStorage<K, T> storage;
+	private final OrderedCacheStorage<K, T> orderedStorage; // set if the storage keeps the order itself
+	private final OrderedKeyIndex<K, T> orderedKeyIndex = new OrderedKeyIndex<>();
+	private final LongAdder weight = new LongAdder();
+	private final CopyOnWriteArrayList<CacheEventListener<K, T>> cacheListeners = new CopyOnWriteArrayList<>();
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 	protected final IDBasedProvider<K, ReentrantBlock> idBasedProvider = new IDBasedProvider<K, ReentrantBlock>().setSupplier((unused) -> new ReentrantBlock());
 	protected final ReentrantLock creationLock = new ReentrantLock();
-	private final ReentrantLock internalCacheModifyLock = new ReentrantLock();
+	private final ReentrantLock[] internalCacheModifyLocks = new ReentrantLock[LOCK_STRIPES]; // striped by key
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final ConcurrentHashMap<K, CompletableFuture<T>> pendingRetrievals = new ConcurrentHashMap<>();
 
 	public Cache(BackendProcessor backendProcessor){
+		this(backendProcessor, new MapCacheStorage<>());
+	}
+
+	protected Cache(BackendProcessor backendProcessor, CacheStorage<K, T> storage){
 		this.backendProcessor = backendProcessor;
+		this.cachePolicy = backendProcessor.getBackendSettings().getCachePolicy(getClass());
+		this.storage = storage;
+		this.orderedStorage = storage instanceof OrderedCacheStorage ? (OrderedCacheStorage<K, T>) storage : null;
+		for(int i = 0; i < internalCacheModifyLocks.length; i++){
+			internalCacheModifyLocks[i] = new ReentrantLock();
+		}
 	}
 
 	// data
 
 	public T get_(K id){
-		return dataMap.get(id);
+		return access(storage.get(id));
+	}
+
+	/**
+	 * Returns the cached object without counting as access
+	 * <p>
+	 * This does not affect the eviction order and restored objects do not get revalidated
+	 *
+	 * @param id of the object
+	 *
+	 * @return object or null if not cached
+	 */
+	public T peek_(K id){
+		var node = storage.get(id);
+		return isAlive(node) ? node.getValue() : null;
 	}
 
 	public T add_(K id, T t){
-		try{
-			internalCacheModifyLock.lock();
-			dataMap.put(id, t);
-			inverseDataMap.put(t, id);
-			orderedKeyMap.add(id);
-			onInsertion(id, t);
-			return t;
-		}
-		finally{
-			internalCacheModifyLock.unlock();
-		}
+		insert(new OrderedKeyIndex.Node<>(id, t, System.currentTimeMillis(), weigh(t)));
+		return t;
 	}
 
 	@CheckReturnValue
@@ -80,43 +113,464 @@ public abstract class Cache<K, T extends APIDataObject<T>>{
 	public abstract ExecutionAction<Void> delete(K id);
 
 	public void remove_(K id){
+		if(id == null){
+			return;
+		}
+		var node = storage.get(id);
+		if(node != null){
+			removeNode(node);
+		}
+	}
+
+	public void remove_(T t){
+		if(t == null){
+			return;
+		}
+		var node = storage.find(t);
+		if(node != null){
+			removeNode(node);
+		}
+	}
+
+	/**
+	 * Retrieves multiple objects at once
+	 * <p>
+	 * Objects which are not cached are retrieved one by one with a limited number of requests in flight.
+	 * Objects which do not exist on the backend are skipped.
+	 * <p>
+	 * Fetched objects are only added to the cache after all of them have been retrieved successfully
+	 *
+	 * @param ids   of the objects
+	 * @param cache whether fetched objects should be added to the cache
+	 *
+	 * @return objects in the order of the ids
+	 */
+	@CheckReturnValue
+	public ExecutionAction<List<T>> retrieveMany(Collection<K> ids, boolean cache){
+		Supplier<List<T>> fun = () -> {
+			try{
+				Map<K, T> found = new LinkedHashMap<>();
+				List<K> missing = new ArrayList<>();
+				for(K id : new LinkedHashSet<>(ids)){
+					// single lookup, an entry expiring in between must not get lost
+					var node = storage.get(id);
+					T t = isAlive(node) ? access(node) : null;
+					found.put(id, t); // keep the order
+					if(t == null){
+						missing.add(id);
+					}
+				}
+				Map<K, T> fetched = fetchEach(missing);
+				if(cache){
+					for(var entry : fetched.entrySet()){
+						entry.setValue(addFetched(entry.getKey(), entry.getValue()));
+					}
+				}
+				List<T> list = new ArrayList<>(found.size());
+				found.forEach((id, t) -> {
+					T value = t != null ? t : fetched.get(id);
+					if(value != null){
+						list.add(value);
+					}
+				});
+				return list;
+			}
+			catch(CacheException | DataException e){
+				throw e;
+			}
+			catch(Exception e){
+				throw new CacheException(CacheException.Type.UNKNOWN, "Failed To Retrieve Multiple Objects", e);
+			}
+		};
+		return new SupplierExecutionAction<>(backendProcessor.getScalingExecutor(), fun);
+	}
+
+	/**
+	 * Adds an object which has been fetched without holding the block of its id
+	 *
+	 * @return the object or the instance which has been cached by a retrieval in the meantime
+	 */
+	private T addFetched(K id, T t) throws InterruptedException, TimeoutException{
+		if(!idBasedProvider.getElseCreate(id).tryAcquire(10, TimeUnit.SECONDS)){
+			throw new TimeoutException("Failed to acquire block for " + id + " in a reasonable time");
+		}
 		try{
-			internalCacheModifyLock.lock();
-			if(id == null){
-				return;
+			if(contains(id)){
+				return get_(id);
 			}
-			var t = dataMap.remove(id);
-			if(t == null){
-				return;
+			return add_(id, t);
+		}
+		finally{
+			idBasedProvider.get(id).release();
+		}
+	}
+
+	private Map<K, T> fetchEach(List<K> ids) throws InterruptedException{
+		Map<K, T> fetched = new ConcurrentHashMap<>();
+		Semaphore permits = new Semaphore(FAN_OUT_PARALLELISM);
+		List<CompletableFuture<T>> futures = new ArrayList<>(ids.size());
+		for(K id : ids){
+			permits.acquire();
+			futures.add(retrieveAsync(id, false).whenComplete((t, throwable) -> {
+				permits.release();
+				if(t != null){
+					fetched.put(id, t);
+				}
+			}));
+		}
+		for(var future : futures){
+			try{
+				future.join();
+			}
+			catch(CompletionException e){
+				if(e.getCause() instanceof DataException dataException && dataException.getType() == DataException.Type.HTTP && dataException.getCode() == 404){
+					continue; // does not exist
+				}
+				throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+			}
+		}
+		return fetched;
+	}
+
+	// async
+
+	/**
+	 * Retrieves the object without blocking a thread while waiting for the backend
+	 * <p>
+	 * Concurrent retrievals of the same key share one request
+	 *
+	 * @param id    of the object
+	 * @param cache whether the object should be added to the cache
+	 *
+	 * @return future of the object
+	 */
+	public CompletableFuture<T> retrieveAsync(K id, boolean cache){
+		if(contains(id)){
+			return CompletableFuture.completedFuture(get_(id));
+		}
+		CompletableFuture<T> future = new CompletableFuture<>();
+		var pending = pendingRetrievals.putIfAbsent(id, future);
+		if(pending != null){
+			return pending;
+		}
+		try{
+			newObject(id).getAsync(true).whenComplete((entry, throwable) -> {
+				if(throwable == null && cache){
+					add_(id, entry);
+				}
+				pendingRetrievals.remove(id, future);
+				if(throwable != null){
+					future.completeExceptionally(throwable);
+				}
+				else{
+					future.complete(entry);
+				}
+			});
+		}
+		catch(Exception e){
+			pendingRetrievals.remove(id, future);
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Deletes the object without blocking a thread while waiting for the backend
+	 *
+	 * @param id of the object
+	 *
+	 * @return future completing once the object has been deleted
+	 */
+	public CompletableFuture<Void> deleteAsync(K id){
+		try{
+			remove_(id);
+			return newObject(id).deleteAsync(true).thenApply(unused -> null);
+		}
+		catch(Exception e){
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Creates a new local instance of the object which can be used to access the backend
+	 *
+	 * @param id of the object
+	 *
+	 * @return object
+	 */
+	protected abstract T newObject(K id);
+
+	// snapshot
+
+	/**
+	 * Serializes all cached objects including their nested caches
+	 *
+	 * @return snapshot ordered from oldest to newest entry
+	 */
+	public JSONArray snapshot(){
+		JSONArray snapshot = new JSONArray();
+		for(K key : getOrderedKeys()){
+			var node = storage.get(key);
+			if(!isAlive(node)){
+				continue;
+			}
+			T t = node.getValue();
+			JSONObject entry = new JSONObject()
+				.put("key", key)
+				.put("time", node.getWriteTime())
+				.put("data", t.asJSON());
+			JSONObject nested = t.asNestedSnapshot();
+			if(nested != null){
+				entry.put("nested", nested);
 			}
-			inverseDataMap.remove(t);
-			orderedKeyMap.remove(id);
-			onRemoval(id, t);
+			snapshot.put(entry);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Loads objects from a snapshot into the cache without contacting the backend
+	 * <p>
+	 * Restored objects keep the time they have been retrieved at, so they expire as if they had never left the cache.
+	 * Each one gets revalidated against the backend in the background on its first access, objects which do not exist anymore are removed then.
+	 *
+	 * @param snapshot as created by {@link #snapshot()}
+	 *
+	 * @return number of restored objects
+	 */
+	public int restore(JSONArray snapshot){
+		int restored = 0;
+		for(int i = 0; i < snapshot.length(); i++){
+			JSONObject entry = snapshot.getJSONObject(i);
+			try{
+				K key = readKey(entry.get("key"));
+				if(contains(key)){
+					continue; // retrieved from the backend already
+				}
+				T t = newObject(key);
+				t.onRestore(entry.getJSONObject("data"));
+				var node = newNode(key, t, entry.getLong("time"));
+				if(!isAlive(node)){
+					continue;
+				}
+				node.setStale(true);
+				insert(node);
+				if(entry.has("nested")){
+					t.restoreNestedSnapshot(entry.getJSONObject("nested"));
+				}
+				restored++;
+			}
+			catch(Exception e){
+				logger.warn("Failed To Restore Entry Of " + getClass().getSimpleName() + ": " + e.getMessage());
+			}
+		}
+		return restored;
+	}
+
+	private void revalidate(OrderedKeyIndex.Node<K, T> node){
+		node.setStale(false);
+		try{
+			node.getValue().getAsync().whenComplete((unused, throwable) -> {
+				if(throwable == null){
+					return;
+				}
+				Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+				if(cause instanceof DataException dataException && dataException.getCode() == 404 && storage.get(node.getKey()) == node){
+					removeNode(node); // deleted while the client was offline
+				}
+				else{
+					logger.debug("Failed To Revalidate Restored Entry " + node.getKey() + " Of " + getClass().getSimpleName() + ": " + cause.getMessage());
+				}
+			});
+		}
+		catch(Exception e){
+			logger.debug("Failed To Revalidate Restored Entry " + node.getKey() + " Of " + getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+
+	// internal
+
+	protected T access(OrderedKeyIndex.Node<K, T> node){
+		if(node == null){
+			return null;
+		}
+		if(cachePolicy.isAccessOrder() && orderedStorage == null){
+			node.setAccessTime(System.currentTimeMillis());
+			orderedKeyIndex.tryMoveToTail(node);
+		}
+		if(node.isStale()){
+			revalidate(node);
+		}
+		return node.getValue();
+	}
+
+	/**
+	 * Creates the node an object gets stored with
+	 *
+	 * @param id        of the object
+	 * @param t         object
+	 * @param writeTime time the object has been retrieved
+	 *
+	 * @return node
+	 */
+	protected OrderedKeyIndex.Node<K, T> newNode(K id, T t, long writeTime){
+		return new OrderedKeyIndex.Node<>(id, t, writeTime, weigh(t));
+	}
+
+	/**
+	 * Reads a key as written to a snapshot
+	 *
+	 * @param key json value
+	 *
+	 * @return key
+	 */
+	@SuppressWarnings("unchecked")
+	protected K readKey(Object key){
+		return (K) key;
+	}
+
+	protected boolean isAlive(OrderedKeyIndex.Node<K, T> node){
+		if(node == null){
+			return false;
+		}
+		// expired entries are treated as missing so that they get fetched again, unless the backend is unavailable
+		return !cachePolicy.isExpired(node.getWriteTime(), node.getAccessTime(), System.currentTimeMillis()) || backendProcessor.getCircuitBreaker().hasOpenCircuits();
+	}
+
+	protected long weigh(T t){
+		return cachePolicy.isWeighted() ? cachePolicy.weigh(t) : 0;
+	}
+
+	protected void insert(OrderedKeyIndex.Node<K, T> node){
+		var lock = lockFor(node);
+		OrderedKeyIndex.Node<K, T> previous;
+		try{
+			lock.lock();
+			previous = storage.put(node);
+			if(previous != null){
+				weight.add(-previous.getWeight());
+			}
+			if(orderedStorage == null){
+				if(previous != null){
+					// replaced entries lose their position
+					orderedKeyIndex.unlink(previous);
+				}
+				orderedKeyIndex.append(node);
+			}
+			weight.add(node.getWeight());
 		}
 		finally{
-			internalCacheModifyLock.unlock();
+			lock.unlock();
+		}
+		if(orderedStorage == null){
+			orderedKeyIndex.maintain();
 		}
+		if(!cacheListeners.isEmpty()){
+			if(previous != null && orderedStorage != null && !previous.getKey().equals(node.getKey())){
+				onRemoval(previous.getKey(), previous.getValue()); // evicted by the storage
+			}
+			onInsertion(node.getKey(), node.getValue());
+		}
+		enforcePolicy(node);
 	}
 
-	public void remove_(T t){
+	protected boolean removeNode(OrderedKeyIndex.Node<K, T> node){
+		var lock = lockFor(node);
 		try{
-			internalCacheModifyLock.lock();
-			if(t == null){
-				return;
+			lock.lock();
+			if(!storage.remove(node)){
+				return false; // got replaced or removed already
 			}
-			var id = inverseDataMap.remove(t);
-			if(id == null){
+			if(orderedStorage == null){
+				orderedKeyIndex.unlink(node);
+			}
+			weight.add(-node.getWeight());
+		}
+		finally{
+			lock.unlock();
+		}
+		if(orderedStorage == null){
+			orderedKeyIndex.maintain();
+		}
+		if(!cacheListeners.isEmpty()){
+			onRemoval(node.getKey(), node.getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Modifications of the same key are serialized by one of the striped locks. The storage is safe for concurrent use
+	 * on its own and the index only buffers changes, so writers of different keys dont block each other
+	 *
+	 * @param node which should be modified
+	 *
+	 * @return lock responsible for the key of the node
+	 */
+	private ReentrantLock lockFor(OrderedKeyIndex.Node<K, T> node){
+		int hash = node.keyHash();
+		return internalCacheModifyLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+	}
+
+	private OrderedKeyIndex.Node<K, T> oldestNode(){
+		return orderedStorage != null ? orderedStorage.oldest() : orderedKeyIndex.oldest();
+	}
+
+	/**
+	 * Evicts entries from the start of the eviction order as long as they are expired or the cache exceeds its limits
+	 * <p>
+	 * Only one writer evicts at a time and at most {@link #EVICTION_BATCH} entries, the others skip it unless the
+	 * cache exceeds its limits by far. This spreads the work over the writers without letting the cache grow unbounded.
+	 *
+	 * @param keep node which should not get evicted, usually the one inserted last
+	 */
+	private void enforcePolicy(OrderedKeyIndex.Node<K, T> keep){
+		if(cachePolicy.isUnbounded()){
+			return;
+		}
+		if(!evictionLock.tryLock()){
+			if(!exceedsLimits(true)){
 				return;
 			}
-			dataMap.remove(id);
-			orderedKeyMap.remove(id);
-			onRemoval(id, t);
+			evictionLock.lock();
+		}
+		try{
+			long now = System.currentTimeMillis();
+			for(int evicted = 0; evicted < EVICTION_BATCH; ){
+				var oldest = oldestNode();
+				if(oldest == null || oldest == keep){
+					return;
+				}
+				if(!exceedsLimits(false) && !cachePolicy.isExpired(oldest.getWriteTime(), oldest.getAccessTime(), now)){
+					return;
+				}
+				if(removeNode(oldest)){
+					evicted++;
+				}
+				else if(oldestNode() == oldest){
+					return; // removed from the storage but not yet from the index
+				}
+			}
 		}
 		finally{
-			internalCacheModifyLock.unlock();
+			evictionLock.unlock();
 		}
 	}
 
+	/**
+	 * @param slack whether some excess should be tolerated
+	 *
+	 * @return true if the cache exceeds its size or weight limit
+	 */
+	private boolean exceedsLimits(boolean slack){
+		int maxSize = cachePolicy.getMaxSize();
+		long maxWeight = cachePolicy.getMaxWeight();
+		if(slack){
+			maxSize = maxSize >= 0 ? maxSize + Math.max(EVICTION_BATCH, maxSize >> 3) : maxSize;
+			maxWeight = maxWeight >= 0 ? maxWeight + (maxWeight >> 3) : maxWeight;
+		}
+		return (maxSize >= 0 && size() > maxSize) || (cachePolicy.isWeighted() && weight.sum() > maxWeight);
+	}
+
 	// qol
 
 	public BackendProcessor getBackendProcessor(){
@@ -124,28 +578,83 @@ public abstract class Cache<K, T extends APIDataObject<T>>{
 	}
 
 	public boolean contains(K id){
-		return dataMap.containsKey(id);
+		return isAlive(storage.get(id));
+	}
+
+	public int size(){
+		return storage.size();
+	}
+
+	/**
+	 * @return estimated bytes of all entries, only tracked if the cache policy limits the weight
+	 */
+	public long getWeight(){
+		return weight.sum();
+	}
+
+	public CachePolicy getCachePolicy(){
+		return cachePolicy;
 	}
 
 	public List<T> getAllAsList(){
-		return new ArrayList<>(dataMap.values());
+		List<T> list = new ArrayList<>(storage.size());
+		storage.forEach(node -> list.add(node.getValue()));
+		return list;
 	}
 
 	public HashMap<K, T> getAllAsMap(){
-		return new HashMap<>(dataMap);
+		HashMap<K, T> map = new HashMap<>();
+		storage.forEach(node -> map.put(node.getKey(), node.getValue()));
+		return map;
 	}
 
+	/**
+	 * @return snapshot of the cached data, changes to it wont be reflected by the cache
+	 *
+	 * @deprecated use {@link #getAllAsMap()}
+	 */
+	@Deprecated
 	public ConcurrentHashMap<K, T> getDataMap(){
-		return dataMap;
+		return new ConcurrentHashMap<>(getAllAsMap());
+	}
+
+	/**
+	 * @return snapshot of all keys ordered from oldest to newest
+	 */
+	public List<K> getOrderedKeys(){
+		return orderedStorage != null ? orderedStorage.keys() : orderedKeyIndex.keys();
+	}
+
+	/**
+	 * @return the key which has been inserted first or null if the cache is empty
+	 */
+	public K getOldestKey(){
+		var node = oldestNode();
+		return node != null ? node.getKey() : null;
+	}
+
+	/**
+	 * @return the key which has been inserted last or null if the cache is empty
+	 */
+	public K getNewestKey(){
+		var node = orderedStorage != null ? orderedStorage.newest() : orderedKeyIndex.newest();
+		return node != null ? node.getKey() : null;
 	}
 
+	/**
+	 * @return snapshot of all keys ordered from oldest to newest
+	 *
+	 * @deprecated use {@link #getOrderedKeys()}, {@link #getOldestKey()} or {@link #size()}
+	 */
+	@Deprecated
 	public ArrayList<K> getOrderedKeyMap(){
-		return orderedKeyMap;
+		return new ArrayList<>(getOrderedKeys());
 	}
 
 	public void clear(boolean deletion){
-		dataMap.values().forEach(this::remove_); // remove all objects, triggering the remove event for the cache
-		dataMap.forEach((k, v) -> {
+		var objects = getAllAsList();
+		objects.forEach(this::remove_); // remove all objects, triggering the remove event for the cache
+		objects.forEach(v -> {
 			if(deletion){
 				v.onDeletion(); // trigger deletion event for when this cache gets removed with the deletion as cause
 			}
@@ -154,7 +663,7 @@ public abstract class Cache<K, T extends APIDataObject<T>>{
 	}
 
 	private void onInsertion(K newKey, T newObject){
-		for(var listener : new ArrayList<>(cacheListeners)){
+		for(var listener : cacheListeners){
 			try{
 				listener.onInsertion(newKey, newObject);
 			}
@@ -165,7 +674,7 @@ public abstract class Cache<K, T extends APIDataObject<T>>{
 	}
 
 	private void onRemoval(K oldKey, T oldObject){
-		for(var listener : new ArrayList<>(cacheListeners)){
+		for(var listener : cacheListeners){
 			try{
 				listener.onRemoval(oldKey, oldObject);
 			}
@@ -0,0 +1,151 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Describes when entries of a {@link Cache} should be evicted
+ * <p>
+ * Limits which are not set (-1) are not enforced. Evicting an object also drops the caches nested within it, eg.
+ * the channels, roles and messages of a guild, which is why caches are unbounded unless a policy is set for them.
+ */
+public class CachePolicy{
+
+	public static final CachePolicy UNBOUNDED = new Builder().build();
+	public static final ToLongFunction<APIDataObject<?>> DEFAULT_WEIGHER = APIDataObject::estimateWeight;
+
+	private final int maxSize;
+	private final long maxWeight;
+	private final long expireAfterWrite;
+	private final long expireAfterAccess;
+	private final boolean accessOrder;
+	private final ToLongFunction<APIDataObject<?>> weigher;
+
+	private CachePolicy(int maxSize, long maxWeight, long expireAfterWrite, long expireAfterAccess, boolean accessOrder, ToLongFunction<APIDataObject<?>> weigher){
+		this.maxSize = maxSize;
+		this.maxWeight = maxWeight;
+		this.expireAfterWrite = expireAfterWrite;
+		this.expireAfterAccess = expireAfterAccess;
+		this.accessOrder = accessOrder || expireAfterAccess > 0;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Size bounded policy evicting the least recently used entries first
+	 *
+	 * @param maxSize max number of entries
+	 *
+	 * @return CachePolicy
+	 */
+	public static CachePolicy lru(int maxSize){
+		return new Builder().maxSize(maxSize).accessOrder(true).build();
+	}
+
+	public int getMaxSize(){
+		return maxSize;
+	}
+
+	public long getMaxWeight(){
+		return maxWeight;
+	}
+
+	public long getExpireAfterWrite(){
+		return expireAfterWrite;
+	}
+
+	public long getExpireAfterAccess(){
+		return expireAfterAccess;
+	}
+
+	public boolean isAccessOrder(){
+		return accessOrder;
+	}
+
+	public boolean isUnbounded(){
+		return maxSize < 0 && maxWeight < 0 && expireAfterWrite < 0 && expireAfterAccess < 0;
+	}
+
+	public boolean isWeighted(){
+		return maxWeight >= 0;
+	}
+
+	public long weigh(APIDataObject<?> object){
+		return weigher.applyAsLong(object);
+	}
+
+	public boolean isExpired(long writeTime, long accessTime, long now){
+		return (expireAfterWrite >= 0 && now - writeTime > expireAfterWrite) || (expireAfterAccess >= 0 && now - accessTime > expireAfterAccess);
+	}
+
+	public static class Builder{
+
+		private int maxSize = -1;
+		private long maxWeight = -1;
+		private long expireAfterWrite = -1;
+		private long expireAfterAccess = -1;
+		private boolean accessOrder = false;
+		private ToLongFunction<APIDataObject<?>> weigher = DEFAULT_WEIGHER;
+
+		public Builder maxSize(int maxSize){
+			this.maxSize = maxSize;
+			return this;
+		}
+
+		/**
+		 * @param maxWeight max estimated bytes of all entries combined
+		 *
+		 * @return Builder
+		 */
+		public Builder maxWeight(long maxWeight){
+			this.maxWeight = maxWeight;
+			return this;
+		}
+
+		public Builder weigher(ToLongFunction<APIDataObject<?>> weigher){
+			this.weigher = weigher;
+			return this;
+		}
+
+		public Builder expireAfterWrite(long duration, TimeUnit timeUnit){
+			this.expireAfterWrite = timeUnit.toMillis(duration);
+			return this;
+		}
+
+		public Builder expireAfterAccess(long duration, TimeUnit timeUnit){
+			this.expireAfterAccess = timeUnit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * @param accessOrder true if reads should move entries to the end of the eviction order (lru)
+		 *
+		 * @return Builder
+		 */
+		public Builder accessOrder(boolean accessOrder){
+			this.accessOrder = accessOrder;
+			return this;
+		}
+
+		public CachePolicy build(){
+			return new CachePolicy(maxSize, maxWeight, expireAfterWrite, expireAfterAccess, accessOrder, weigher);
+		}
+
+	}
+
+}
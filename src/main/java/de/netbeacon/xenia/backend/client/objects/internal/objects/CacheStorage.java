@@ -0,0 +1,66 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.function.Consumer;
+
+/**
+ * Backing storage of a {@link Cache}
+ * <p>
+ * Implementations only need to be safe for concurrent access, ordering and policy handling is done by the cache
+ *
+ * @param <K> key
+ * @param <T> value
+ */
+public interface CacheStorage<K, T>{
+
+	/**
+	 * @param key of the entry
+	 *
+	 * @return node or null if no entry exists for the key
+	 */
+	OrderedKeyIndex.Node<K, T> get(K key);
+
+	/**
+	 * Stores the node by its key
+	 *
+	 * @param node to store
+	 *
+	 * @return the node which has been replaced or null
+	 */
+	OrderedKeyIndex.Node<K, T> put(OrderedKeyIndex.Node<K, T> node);
+
+	/**
+	 * Removes the node if it is still the one stored for its key
+	 *
+	 * @param node to remove
+	 *
+	 * @return true if the node has been removed
+	 */
+	boolean remove(OrderedKeyIndex.Node<K, T> node);
+
+	/**
+	 * @param value of the entry
+	 *
+	 * @return node holding exactly this value or null
+	 */
+	OrderedKeyIndex.Node<K, T> find(T value);
+
+	int size();
+
+	void forEach(Consumer<OrderedKeyIndex.Node<K, T>> consumer);
+
+}
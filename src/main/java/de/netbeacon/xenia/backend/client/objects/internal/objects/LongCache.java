@@ -0,0 +1,210 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import de.netbeacon.utils.collections.ConcurrentLongHashMap;
+import de.netbeacon.xenia.backend.client.objects.internal.BackendProcessor;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache for objects identified by a snowflake
+ * <p>
+ * Entries are stored in a primitive long keyed table, lookups by value use the key of the object itself
+ * instead of an inverse map. Heap used by the storage for 1.000.000 snowflake keys, values not included
+ * (measured with JOL on JDK 17):
+ * <pre>
+ *                   compressed oops   uncompressed oops
+ * Cache&lt;Long, T&gt;  ~161 MB           ~210 MB
+ * LongCache&lt;T&gt;    ~89 MB           ~114 MB
+ * </pre>
+ *
+ * @param <T> value
+ */
+public abstract class LongCache<T extends APIDataObject<T>> extends Cache<Long, T>{
+
+	private final LongCacheStorage<T> storage;
+
+	/**
+	 * @param backendProcessor backend processor
+	 * @param keyExtractor     returns the key under which the object is stored
+	 */
+	public LongCache(BackendProcessor backendProcessor, ToLongFunction<T> keyExtractor){
+		this(backendProcessor, new MapLongCacheStorage<>(keyExtractor));
+	}
+
+	protected LongCache(BackendProcessor backendProcessor, LongCacheStorage<T> storage){
+		super(backendProcessor, storage);
+		this.storage = storage;
+	}
+
+	// data
+
+	public T get_(long id){
+		return access(storage.get(id));
+	}
+
+	@Override
+	public T get_(Long id){
+		return id != null ? get_(id.longValue()) : null;
+	}
+
+	public T add_(long id, T t){
+		insert(new LongNode<>(id, t, System.currentTimeMillis(), weigh(t)));
+		return t;
+	}
+
+	@Override
+	public T add_(Long id, T t){
+		return add_(id.longValue(), t);
+	}
+
+	public void remove_(long id){
+		var node = storage.get(id);
+		if(node != null){
+			removeNode(node);
+		}
+	}
+
+	@Override
+	public void remove_(Long id){
+		if(id == null){
+			return;
+		}
+		remove_(id.longValue());
+	}
+
+	@Override
+	protected OrderedKeyIndex.Node<Long, T> newNode(Long id, T t, long writeTime){
+		return new LongNode<>(id, t, writeTime, weigh(t));
+	}
+
+	@Override
+	protected Long readKey(Object key){
+		return ((Number) key).longValue(); // small numbers are parsed as integers
+	}
+
+	// qol
+
+	public boolean contains(long id){
+		return isAlive(storage.get(id));
+	}
+
+	@Override
+	public boolean contains(Long id){
+		return id != null && contains(id.longValue());
+	}
+
+	/**
+	 * Index node keeping the key as primitive, it only gets boxed when requested through {@link #getKey()}
+	 *
+	 * @param <T> value
+	 */
+	public static class LongNode<T> extends OrderedKeyIndex.Node<Long, T>{
+
+		private final long id;
+
+		public LongNode(long id, T value, long writeTime, long weight){
+			super(null, value, writeTime, weight);
+			this.id = id;
+		}
+
+		public long getId(){
+			return id;
+		}
+
+		@Override
+		public Long getKey(){
+			return id;
+		}
+
+		@Override
+		public int keyHash(){
+			return Long.hashCode(id);
+		}
+
+	}
+
+	/**
+	 * Storage of a {@link LongCache}, nodes passed to it are always {@link LongNode}s
+	 *
+	 * @param <T> value
+	 */
+	public interface LongCacheStorage<T> extends CacheStorage<Long, T>{
+
+		/**
+		 * @param key of the entry
+		 *
+		 * @return node or null if no entry exists for the key
+		 */
+		LongNode<T> get(long key);
+
+	}
+
+	private static class MapLongCacheStorage<T> implements LongCacheStorage<T>{
+
+		private final ConcurrentLongHashMap<LongNode<T>> dataMap = new ConcurrentLongHashMap<>();
+		private final ToLongFunction<T> keyExtractor;
+
+		private MapLongCacheStorage(ToLongFunction<T> keyExtractor){
+			this.keyExtractor = keyExtractor;
+		}
+
+		@Override
+		public LongNode<T> get(long key){
+			return dataMap.get(key);
+		}
+
+		@Override
+		public OrderedKeyIndex.Node<Long, T> get(Long key){
+			return key != null ? dataMap.get(key) : null;
+		}
+
+		@Override
+		public OrderedKeyIndex.Node<Long, T> put(OrderedKeyIndex.Node<Long, T> node){
+			var longNode = (LongNode<T>) node;
+			return dataMap.put(longNode.getId(), longNode);
+		}
+
+		@Override
+		public boolean remove(OrderedKeyIndex.Node<Long, T> node){
+			var longNode = (LongNode<T>) node;
+			return dataMap.remove(longNode.getId(), longNode);
+		}
+
+		@Override
+		public OrderedKeyIndex.Node<Long, T> find(T value){
+			if(value == null){
+				return null;
+			}
+			var node = dataMap.get(keyExtractor.applyAsLong(value));
+			return node != null && node.getValue() == value ? node : null;
+		}
+
+		@Override
+		public int size(){
+			return dataMap.size();
+		}
+
+		@Override
+		public void forEach(Consumer<OrderedKeyIndex.Node<Long, T>> consumer){
+			dataMap.forEach((key, node) -> consumer.accept(node));
+		}
+
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Default storage using a data map and an inverse map to look up entries by their value
+ *
+ * @param <K> key
+ * @param <T> value
+ */
+public class MapCacheStorage<K, T> implements CacheStorage<K, T>{
+
+	private final ConcurrentHashMap<K, OrderedKeyIndex.Node<K, T>> dataMap = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<T, K> inverseDataMap = new ConcurrentHashMap<>();
+
+	@Override
+	public OrderedKeyIndex.Node<K, T> get(K key){
+		if(key == null){
+			return null;
+		}
+		return dataMap.get(key);
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<K, T> put(OrderedKeyIndex.Node<K, T> node){
+		var previous = dataMap.put(node.getKey(), node);
+		if(previous != null){
+			inverseDataMap.remove(previous.getValue(), previous.getKey());
+		}
+		inverseDataMap.put(node.getValue(), node.getKey());
+		return previous;
+	}
+
+	@Override
+	public boolean remove(OrderedKeyIndex.Node<K, T> node){
+		if(!dataMap.remove(node.getKey(), node)){
+			return false;
+		}
+		inverseDataMap.remove(node.getValue(), node.getKey());
+		return true;
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<K, T> find(T value){
+		if(value == null){
+			return null;
+		}
+		var key = inverseDataMap.get(value);
+		if(key == null){
+			return null;
+		}
+		var node = dataMap.get(key);
+		return node != null && node.getValue() == value ? node : null;
+	}
+
+	@Override
+	public int size(){
+		return dataMap.size();
+	}
+
+	@Override
+	public void forEach(Consumer<OrderedKeyIndex.Node<K, T>> consumer){
+		dataMap.values().forEach(consumer);
+	}
+
+}
@@ -0,0 +1,47 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.List;
+
+/**
+ * Storage keeping its entries in insertion order itself, a {@link Cache} using it does not maintain an {@link OrderedKeyIndex}
+ * <p>
+ * The storage may evict its oldest entry to make room for a new one, in which case {@link #put(OrderedKeyIndex.Node)}
+ * returns the evicted node instead of a replaced one
+ *
+ * @param <K> key
+ * @param <T> value
+ */
+public interface OrderedCacheStorage<K, T> extends CacheStorage<K, T>{
+
+	/**
+	 * @return the node which has been inserted first or null if the storage is empty
+	 */
+	OrderedKeyIndex.Node<K, T> oldest();
+
+	/**
+	 * @return the node which has been inserted last or null if the storage is empty
+	 */
+	OrderedKeyIndex.Node<K, T> newest();
+
+	/**
+	 * @return snapshot of all keys ordered from oldest to newest
+	 */
+	List<K> keys();
+
+}
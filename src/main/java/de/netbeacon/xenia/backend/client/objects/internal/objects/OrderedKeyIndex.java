@@ -0,0 +1,340 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Insertion ordered index of cache entries
+ * <p>
+ * The nodes are owned by the cache data map and linked into a doubly linked list,
+ * so appending, unlinking and accessing the oldest entry are all O(1)
+ * <p>
+ * Writers dont modify the list themselves but add their change to a lock free buffer. The buffer is applied in
+ * batches by whichever writer finds it filled and the lock free, or by a reader requesting the order. Writers only
+ * wait for the lock if they outpace the thread applying the buffer, which keeps the buffer from growing without bounds.
+ *
+ * @param <K> key
+ * @param <T> value
+ */
+public class OrderedKeyIndex<K, T>{
+
+	private static final int DRAIN_THRESHOLD = 64; // buffered changes after which writers try to apply them
+	private static final int MAX_BUFFERED_ACCESSES = 1024; // accesses beyond are dropped
+	private static final int MAX_BUFFERED = 4096; // writers beyond have to help applying the buffer
+
+	private final ReentrantLock lock = new ReentrantLock(); // guards the list, only held while applying the buffer
+	private final ConcurrentLinkedQueue<Change<K, T>> buffer = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger buffered = new AtomicInteger();
+	private final Node<K, T> head = new Node<>(null, null); // sentinel, head.next is the oldest, head.prev the newest entry
+	private int size;
+
+	public OrderedKeyIndex(){
+		head.prev = head;
+		head.next = head;
+	}
+
+	/**
+	 * Appends the node as newest entry
+	 * <p>
+	 * Changes of the same node have to be ordered by the caller, eg. by a lock of its key.
+	 * {@link #maintain()} should be called afterwards, once that lock has been released.
+	 *
+	 * @param node to append
+	 */
+	public void append(Node<K, T> node){
+		buffer(new Change<>(Change.Type.APPEND, node));
+	}
+
+	/**
+	 * Moves the node to the end of the index unless too many changes are waiting to be applied already.
+	 * <p>
+	 * This is used to keep track of accessed entries, where skipping an update under contention is acceptable
+	 *
+	 * @param node to move
+	 *
+	 * @return true if the move has been recorded
+	 */
+	public boolean tryMoveToTail(Node<K, T> node){
+		if(buffered.get() >= MAX_BUFFERED_ACCESSES){
+			tryDrain();
+			return false;
+		}
+		buffer(new Change<>(Change.Type.ACCESS, node));
+		maintain();
+		return true;
+	}
+
+	/**
+	 * Removes the node from the index
+	 * <p>
+	 * Changes of the same node have to be ordered by the caller, eg. by a lock of its key.
+	 * {@link #maintain()} should be called afterwards, once that lock has been released.
+	 *
+	 * @param node to remove
+	 */
+	public void unlink(Node<K, T> node){
+		buffer(new Change<>(Change.Type.UNLINK, node));
+	}
+
+	/**
+	 * Returns the oldest node
+	 *
+	 * @return node or null if the index is empty
+	 */
+	public Node<K, T> oldest(){
+		try{
+			lock.lock();
+			drain();
+			return head.next != head ? head.next : null;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the newest node
+	 *
+	 * @return node or null if the index is empty
+	 */
+	public Node<K, T> newest(){
+		try{
+			lock.lock();
+			drain();
+			return head.prev != head ? head.prev : null;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	public int size(){
+		try{
+			lock.lock();
+			drain();
+			return size;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a snapshot of all keys ordered from oldest to newest
+	 *
+	 * @return list of keys
+	 */
+	public List<K> keys(){
+		try{
+			lock.lock();
+			drain();
+			List<K> keys = new ArrayList<>(size);
+			for(var node = head.next; node != head; node = node.next){
+				keys.add(node.getKey());
+			}
+			return keys;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	public void clear(){
+		try{
+			lock.lock();
+			drain();
+			for(var node = head.next; node != head; ){
+				var next = node.next;
+				node.prev = null;
+				node.next = null;
+				node.linked = false;
+				node = next;
+			}
+			head.prev = head;
+			head.next = head;
+			size = 0;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Applies the buffered changes if enough of them have been collected
+	 */
+	public void maintain(){
+		int count = buffered.get();
+		if(count >= MAX_BUFFERED){
+			try{
+				lock.lock();
+				drain();
+			}
+			finally{
+				lock.unlock();
+			}
+		}
+		else if(count >= DRAIN_THRESHOLD){
+			tryDrain();
+		}
+	}
+
+	private void buffer(Change<K, T> change){
+		buffer.add(change);
+		buffered.incrementAndGet();
+	}
+
+	private void tryDrain(){
+		if(!lock.tryLock()){
+			return; // someone else is applying the buffer already
+		}
+		try{
+			drain();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Applies all buffered changes, has to be called while holding the lock
+	 */
+	private void drain(){
+		Change<K, T> change;
+		while((change = buffer.poll()) != null){
+			buffered.decrementAndGet();
+			var node = change.node();
+			switch(change.type()){
+				case APPEND -> {
+					if(node.linked){
+						unlinkInternal(node);
+					}
+					linkInternal(node);
+				}
+				case ACCESS -> {
+					// nodes which are not linked yet or anymore are skipped
+					if(node.linked && head.prev != node){
+						unlinkInternal(node);
+						linkInternal(node);
+					}
+				}
+				case UNLINK -> {
+					if(node.linked){
+						unlinkInternal(node);
+					}
+				}
+			}
+		}
+	}
+
+	private void linkInternal(Node<K, T> node){
+		node.prev = head.prev;
+		node.next = head;
+		head.prev.next = node;
+		head.prev = node;
+		node.linked = true;
+		size++;
+	}
+
+	private void unlinkInternal(Node<K, T> node){
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = null;
+		node.next = null;
+		node.linked = false;
+		size--;
+	}
+
+	private record Change<K, T>(Type type, Node<K, T> node){
+
+		private enum Type{
+			APPEND,
+			ACCESS,
+			UNLINK
+		}
+
+	}
+
+	public static class Node<K, T>{
+
+		private final K key;
+		private final T value;
+		// guarded by the lock of the index
+		private Node<K, T> prev;
+		private Node<K, T> next;
+		private boolean linked;
+		// eviction metadata
+		private final long writeTime;
+		private volatile long accessTime;
+		private final long weight;
+		private volatile boolean stale; // restored from a snapshot, not yet revalidated
+
+		public Node(K key, T value){
+			this(key, value, System.currentTimeMillis(), 0);
+		}
+
+		public Node(K key, T value, long writeTime, long weight){
+			this.key = key;
+			this.value = value;
+			this.writeTime = writeTime;
+			this.accessTime = writeTime;
+			this.weight = weight;
+		}
+
+		public K getKey(){
+			return key;
+		}
+
+		public int keyHash(){
+			return key != null ? key.hashCode() : 0;
+		}
+
+		public T getValue(){
+			return value;
+		}
+
+		public long getWriteTime(){
+			return writeTime;
+		}
+
+		public long getAccessTime(){
+			return accessTime;
+		}
+
+		public void setAccessTime(long accessTime){
+			this.accessTime = accessTime;
+		}
+
+		public long getWeight(){
+			return weight;
+		}
+
+		public boolean isStale(){
+			return stale;
+		}
+
+		public void setStale(boolean stale){
+			this.stale = stale;
+		}
+
+	}
+
+}
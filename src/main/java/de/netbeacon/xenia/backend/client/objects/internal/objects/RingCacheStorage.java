@@ -0,0 +1,340 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal.objects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Fixed capacity storage for snowflake keyed entries forming a sliding window
+ * <p>
+ * Entries are kept in a preallocated ring in insertion order, appending to a full ring overwrites the oldest entry.
+ * Keys are mapped to their slot by a small open addressing index, so the ring replaces the hash map and the
+ * linked index used by other caches. Removing an entry leaves a hole at its slot, holes get compacted once the ring runs full.
+ * <p>
+ * Access order is not supported, entries are always evicted in insertion order
+ *
+ * @param <T> value
+ */
+public class RingCacheStorage<T> implements LongCache.LongCacheStorage<T>, OrderedCacheStorage<Long, T>{
+
+	private static final int MIN_INDEX_CAPACITY = 16;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ToLongFunction<T> keyExtractor;
+	private LongCache.LongNode<T>[] ring;
+	private int start; // slot of the oldest entry
+	private int used; // slots from start to the newest entry, including holes
+	private int size;
+	// index, slot + 1 per key so that 0 marks a free entry
+	private long[] indexKeys;
+	private int[] indexSlots;
+
+	/**
+	 * @param keyExtractor returns the key under which the object is stored
+	 * @param capacity     max number of entries
+	 */
+	public RingCacheStorage(ToLongFunction<T> keyExtractor, int capacity){
+		this.keyExtractor = keyExtractor;
+		allocate(Math.max(1, capacity));
+	}
+
+	@Override
+	public LongCache.LongNode<T> get(long key){
+		try{
+			lock.lock();
+			int slot = indexGet(key);
+			return slot >= 0 ? ring[slot] : null;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<Long, T> get(Long key){
+		return key != null ? get(key.longValue()) : null;
+	}
+
+	/**
+	 * Appends the node as newest entry, a node replacing the entry of the same key takes over its position
+	 *
+	 * @param node to store
+	 *
+	 * @return the node replaced for the same key, else the node evicted to make room or null
+	 */
+	@Override
+	public OrderedKeyIndex.Node<Long, T> put(OrderedKeyIndex.Node<Long, T> node){
+		var longNode = (LongCache.LongNode<T>) node;
+		try{
+			lock.lock();
+			int previousSlot = indexGet(longNode.getId());
+			if(previousSlot >= 0){
+				var replaced = ring[previousSlot];
+				ring[previousSlot] = longNode;
+				return replaced;
+			}
+			LongCache.LongNode<T> evicted = null;
+			if(used == ring.length && size < ring.length){
+				rebuild(ring.length); // holes left by removed entries take up the space
+			}
+			if(used == ring.length){
+				// the window is full, the oldest slot gets overwritten (never a hole, see clearSlot)
+				evicted = ring[start];
+				clearSlot(start);
+			}
+			int slot = (start + used) % ring.length;
+			ring[slot] = longNode;
+			used++;
+			size++;
+			indexPut(longNode.getId(), slot);
+			return evicted;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public boolean remove(OrderedKeyIndex.Node<Long, T> node){
+		var longNode = (LongCache.LongNode<T>) node;
+		try{
+			lock.lock();
+			int slot = indexGet(longNode.getId());
+			if(slot < 0 || ring[slot] != longNode){
+				return false;
+			}
+			clearSlot(slot);
+			return true;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<Long, T> find(T value){
+		if(value == null){
+			return null;
+		}
+		var node = get(keyExtractor.applyAsLong(value));
+		return node != null && node.getValue() == value ? node : null;
+	}
+
+	@Override
+	public int size(){
+		try{
+			lock.lock();
+			return size;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void forEach(Consumer<OrderedKeyIndex.Node<Long, T>> consumer){
+		snapshot().forEach(consumer);
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<Long, T> oldest(){
+		try{
+			lock.lock();
+			return size > 0 ? ring[start] : null;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public OrderedKeyIndex.Node<Long, T> newest(){
+		try{
+			lock.lock();
+			return size > 0 ? ring[(start + used - 1) % ring.length] : null;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public List<Long> keys(){
+		var nodes = snapshot();
+		List<Long> keys = new ArrayList<>(nodes.size());
+		nodes.forEach(node -> keys.add(node.getId()));
+		return keys;
+	}
+
+	public int getCapacity(){
+		try{
+			lock.lock();
+			return ring.length;
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Changes the capacity of the ring
+	 * <p>
+	 * When shrinking below the current size the oldest entries are dropped without the cache noticing,
+	 * those should be removed through the cache first
+	 *
+	 * @param capacity max number of entries
+	 */
+	public void setCapacity(int capacity){
+		try{
+			lock.lock();
+			capacity = Math.max(1, capacity);
+			if(capacity != ring.length){
+				rebuild(capacity);
+			}
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private void rebuild(int capacity){
+		var nodes = snapshotInternal();
+		allocate(capacity);
+		for(int i = Math.max(0, nodes.size() - capacity); i < nodes.size(); i++){
+			var node = nodes.get(i);
+			ring[used] = node;
+			indexPut(node.getId(), used);
+			used++;
+			size++;
+		}
+	}
+
+	private List<LongCache.LongNode<T>> snapshot(){
+		try{
+			lock.lock();
+			return snapshotInternal();
+		}
+		finally{
+			lock.unlock();
+		}
+	}
+
+	private List<LongCache.LongNode<T>> snapshotInternal(){
+		List<LongCache.LongNode<T>> nodes = new ArrayList<>(size);
+		for(int i = 0; i < used; i++){
+			var node = ring[(start + i) % ring.length];
+			if(node != null){
+				nodes.add(node);
+			}
+		}
+		return nodes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void allocate(int capacity){
+		ring = (LongCache.LongNode<T>[]) new LongCache.LongNode<?>[capacity];
+		start = 0;
+		used = 0;
+		size = 0;
+		int indexCapacity = MIN_INDEX_CAPACITY;
+		while(indexCapacity < capacity * 2 && indexCapacity < (1 << 30)){
+			indexCapacity <<= 1;
+		}
+		indexKeys = new long[indexCapacity];
+		indexSlots = new int[indexCapacity];
+	}
+
+	private void clearSlot(int slot){
+		indexRemove(ring[slot].getId());
+		ring[slot] = null;
+		size--;
+		// reclaim holes at both ends of the window
+		while(used > 0 && ring[start] == null){
+			start = (start + 1) % ring.length;
+			used--;
+		}
+		while(used > 0 && ring[(start + used - 1) % ring.length] == null){
+			used--;
+		}
+		if(used == 0){
+			start = 0;
+		}
+	}
+
+	// index
+
+	private static int hash(long key){
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int) key;
+	}
+
+	private int indexGet(long key){
+		int mask = indexSlots.length - 1;
+		for(int i = hash(key) & mask; indexSlots[i] != 0; i = (i + 1) & mask){
+			if(indexKeys[i] == key){
+				return indexSlots[i] - 1;
+			}
+		}
+		return -1;
+	}
+
+	private void indexPut(long key, int slot){
+		int mask = indexSlots.length - 1;
+		int i = hash(key) & mask;
+		while(indexSlots[i] != 0 && indexKeys[i] != key){
+			i = (i + 1) & mask;
+		}
+		indexKeys[i] = key;
+		indexSlots[i] = slot + 1;
+	}
+
+	private void indexRemove(long key){
+		int mask = indexSlots.length - 1;
+		int i = hash(key) & mask;
+		while(indexSlots[i] != 0 && indexKeys[i] != key){
+			i = (i + 1) & mask;
+		}
+		if(indexSlots[i] == 0){
+			return;
+		}
+		// shift following entries of the probe sequence back so no tombstones are needed
+		int gap = i;
+		int next = i;
+		while(true){
+			next = (next + 1) & mask;
+			if(indexSlots[next] == 0){
+				break;
+			}
+			int home = hash(indexKeys[next]) & mask;
+			boolean between = (gap <= next) ? (gap < home && home <= next) : (gap < home || home <= next);
+			if(!between){
+				indexKeys[gap] = indexKeys[next];
+				indexSlots[gap] = indexSlots[next];
+				gap = next;
+			}
+		}
+		indexKeys[gap] = 0;
+		indexSlots[gap] = 0;
+	}
+
+}
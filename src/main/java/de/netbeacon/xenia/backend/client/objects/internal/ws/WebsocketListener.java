@@ -20,6 +20,7 @@ import de.netbeacon.utils.concurrency.executor.ScalingExecutor;
 import de.netbeacon.utils.shutdownhook.IShutdown;
 import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
 import de.netbeacon.xenia.backend.client.objects.internal.BackendSettings;
+import de.netbeacon.xenia.backend.client.objects.internal.VirtualThreadExecutor;
 import okhttp3.Request;
 import okhttp3.Response;
 import okhttp3.WebSocket;
@@ -52,8 +53,10 @@ public abstract class WebsocketListener extends okhttp3.WebSocketListener implem
 		if(webSocket != null){
 			webSocket.close(1000, "Reconnecting Soon");
 		}
-		scalingExecutor = new ScalingExecutor(2, 6, -1, 30, TimeUnit.SECONDS);
 		BackendSettings backendSettings = xeniaBackendClient.getBackendProcessor().getBackendSettings();
+		scalingExecutor = backendSettings.getExecutionMode() == BackendSettings.ExecutionMode.VIRTUAL
+			? new VirtualThreadExecutor(backendSettings.getVirtualThreadConcurrency(), 2, 6)
+			: new ScalingExecutor(2, 6, -1, 30, TimeUnit.SECONDS);
 		String host = backendSettings.getHost();
 		int port = backendSettings.getPort();
 		String token = backendSettings.getToken();
@@ -38,7 +38,9 @@ public class CacheGuildChannelProcessor extends PrimaryWSProcessor{
 		switch(jsonObject.getString("action").toLowerCase()){
 			case "create" -> cc.retrieve(jsonObject.getLong("channelId"), true).queue();
 			case "update" -> cc.retrieve(jsonObject.getLong("channelId"), true).queue(
-				e -> e.get(true).queue()
+				e -> e.get(true).queue(
+					channel -> channel.getMessageCache().recomputeEffectiveLimit() // message limits depend on the settings
+				)
 			);
 			case "delete" -> {
 				if(cc.contains(jsonObject.getLong("channelId"))){
@@ -32,6 +32,12 @@ public class CacheGuildLicenseProcessor extends PrimaryWSProcessor{
 		if(xeniaBackendClient.getLicenseCache().contains(jsonObject.getLong("guildId"))){
 			xeniaBackendClient.getLicenseCache().remove_(jsonObject.getLong("guildId"));
 		}
+		if(xeniaBackendClient.getGuildCache().contains(jsonObject.getLong("guildId"))){
+			// message limits depend on the license
+			for(var channel : xeniaBackendClient.getGuildCache().get_(jsonObject.getLong("guildId")).getChannelCache().getAllAsList()){
+				channel.getMessageCache().recomputeEffectiveLimit();
+			}
+		}
 	}
 
 	@Override
@@ -47,8 +47,8 @@ public class StatisticsProcessor extends WSProcessor{
 				.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime())
 				.put("threads", Thread.activeCount())
 				.put("ce", new JSONObject()
-					.put("guilds", getWsProcessorCore().getXeniaBackendClient().getGuildCache().getDataMap().size())
-					.put("users", getWsProcessorCore().getXeniaBackendClient().getUserCache().getDataMap().size())
+					.put("guilds", getWsProcessorCore().getXeniaBackendClient().getGuildCache().size())
+					.put("users", getWsProcessorCore().getXeniaBackendClient().getUserCache().size())
 				)
 				.put("ping", info.getPing())
 			);
@@ -0,0 +1,224 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import de.netbeacon.xenia.backend.client.core.XeniaBackendClient;
+import de.netbeacon.xenia.backend.client.objects.internal.io.BackendRequest;
+import de.netbeacon.xenia.backend.client.objects.internal.io.BackendResult;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sends concurrent requests to a local backend which rejects the current token and injects 429 responses and timeouts
+ */
+class BackendProcessorLoadTest{
+
+	private static final long READ_TIMEOUT = 250; // ms
+
+	private MockWebServer server;
+	private BackendProcessor backendProcessor;
+	private final AtomicInteger tokenRequests = new AtomicInteger();
+	private final ConcurrentHashMap<String, Queue<MockResponse>> faults = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+	private volatile String validToken = "valid-0";
+
+	@BeforeEach
+	void setUp() throws Exception{
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher(){
+			@Override
+			public MockResponse dispatch(RecordedRequest recordedRequest){
+				String path = recordedRequest.getRequestUrl().encodedPath();
+				if(path.equals("/auth/token")){
+					validToken = "valid-" + tokenRequests.incrementAndGet();
+					// slow enough for all rejected requests to wait for the same refresh
+					return new MockResponse().setBody(new JSONObject().put("token", validToken).toString()).setHeadersDelay(100, TimeUnit.MILLISECONDS);
+				}
+				requests.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+				if(!("Bearer " + validToken).equals(recordedRequest.getHeader("Authorization"))){
+					return new MockResponse().setResponseCode(401);
+				}
+				MockResponse fault = faults.getOrDefault(path, new ConcurrentLinkedQueue<>()).poll();
+				if(fault != null){
+					return fault;
+				}
+				return new MockResponse().setBody(new JSONObject().put("path", path).toString());
+			}
+		});
+		server.start();
+		BackendSettings backendSettings = new BackendSettings("http", server.getHostName(), server.getPort(), 1, "password", "key")
+			.setCircuitBreaker(2, 10000, 10000, TimeUnit.MILLISECONDS); // disabled, only retries are tested here
+		backendSettings.setToken("expired");
+		XeniaBackendClient client = mock(XeniaBackendClient.class);
+		OkHttpClient okHttpClient = new OkHttpClient.Builder()
+			.readTimeout(READ_TIMEOUT, TimeUnit.MILLISECONDS)
+			.addInterceptor(new BackendProcessor.Interceptor(client))
+			.build();
+		when(client.getBackendSettings()).thenReturn(backendSettings);
+		when(client.getOkHttpClient()).thenReturn(okHttpClient);
+		backendProcessor = new BackendProcessor(client);
+		when(client.getBackendProcessor()).thenReturn(backendProcessor);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception{
+		backendProcessor.onShutdown();
+		server.shutdown();
+	}
+
+	@Test
+	void refreshesTheTokenOnceForConcurrentUnauthorizedRequests() throws Exception{
+		List<Integer> codes = sendConcurrently(64, 64);
+		codes.forEach(code -> assertEquals(200, code));
+		assertEquals(1, tokenRequests.get());
+	}
+
+	@Test
+	void retriesRateLimitedRequests() throws Exception{
+		validToken = "expired";
+		for(int i = 0; i < 20; i++){
+			inject(i, tooManyRequests(), tooManyRequests());
+		}
+		List<Integer> codes = sendConcurrently(20, 20);
+		codes.forEach(code -> assertEquals(200, code));
+		for(int i = 0; i < 20; i++){
+			assertEquals(3, requests.get(path(i)).get());
+		}
+		assertEquals(0, tokenRequests.get());
+	}
+
+	@Test
+	void retriesTimedOutRequests() throws Exception{
+		validToken = "expired";
+		for(int i = 0; i < 10; i++){
+			inject(i, timeout());
+		}
+		List<Integer> codes = sendConcurrently(10, 10);
+		codes.forEach(code -> assertEquals(200, code));
+		for(int i = 0; i < 10; i++){
+			assertEquals(2, requests.get(path(i)).get());
+		}
+	}
+
+	@Test
+	void recoversFromMixedFaultsUnderLoad() throws Exception{
+		for(int i = 0; i < 200; i++){
+			List<MockResponse> injected = new ArrayList<>();
+			if(i % 5 == 0){
+				injected.add(tooManyRequests());
+			}
+			if(i % 7 == 0){
+				injected.add(timeout());
+			}
+			inject(i, injected.toArray(new MockResponse[0]));
+		}
+		List<Integer> codes = sendConcurrently(200, 32);
+		codes.forEach(code -> assertEquals(200, code));
+		assertEquals(1, tokenRequests.get());
+	}
+
+	@Test
+	void waitsForRateLimitsWithoutBlockingOtherRoutes() throws Exception{
+		validToken = "expired";
+		inject(0, new MockResponse().setResponseCode(429).setHeader("Retry-After", "2"));
+		CompletableFuture<BackendResult> limited = backendProcessor.processFuture(get("users", 100000000000000000L));
+		while(requests.get(path(0)) == null){
+			Thread.sleep(10);
+		}
+		// more requests than the dispatcher runs per host wait for the blocked route
+		List<CompletableFuture<BackendResult>> waiting = new ArrayList<>();
+		for(int i = 1; i <= 10; i++){
+			waiting.add(backendProcessor.processFuture(get("users", 100000000000000000L + i)));
+		}
+		List<CompletableFuture<BackendResult>> others = new ArrayList<>();
+		for(int i = 0; i < 10; i++){
+			others.add(backendProcessor.processFuture(get("guilds", 100000000000000000L + i)));
+		}
+		for(var future : others){
+			assertEquals(200, future.get(1, TimeUnit.SECONDS).getStatusCode());
+		}
+		assertEquals(200, limited.get(10, TimeUnit.SECONDS).getStatusCode());
+		for(var future : waiting){
+			assertEquals(200, future.get(10, TimeUnit.SECONDS).getStatusCode());
+		}
+	}
+
+	private List<Integer> sendConcurrently(int count, int threads) throws Exception{
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		try{
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> futures = new ArrayList<>();
+			for(int i = 0; i < count; i++){
+				long id = 100000000000000000L + i;
+				futures.add(executorService.submit(() -> {
+					start.await();
+					BackendResult backendResult = backendProcessor.process(get("users", id));
+					return backendResult.getStatusCode();
+				}));
+			}
+			start.countDown();
+			List<Integer> codes = new ArrayList<>();
+			for(var future : futures){
+				codes.add(future.get(60, TimeUnit.SECONDS));
+			}
+			return codes;
+		}
+		finally{
+			executorService.shutdownNow();
+		}
+	}
+
+	private static BackendRequest get(String type, long id){
+		return new BackendRequest(BackendRequest.Method.GET, BackendRequest.AuthType.BEARER, List.of("data", type, String.valueOf(id)), new HashMap<>(), null);
+	}
+
+	private void inject(int i, MockResponse... responses){
+		faults.put(path(i), new ConcurrentLinkedQueue<>(List.of(responses)));
+	}
+
+	private static String path(int i){
+		return "/data/users/" + (100000000000000000L + i);
+	}
+
+	private static MockResponse tooManyRequests(){
+		return new MockResponse().setResponseCode(429).setHeader("Retry-After", "0.05");
+	}
+
+	private static MockResponse timeout(){
+		return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ *     Copyright 2021 Horstexplorer @ https://www.netbeacon.de
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *          http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.netbeacon.xenia.backend.client.objects.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadExecutorTest{
+
+	@Test
+	void runsAllTasks() throws InterruptedException{
+		VirtualThreadExecutor executor = new VirtualThreadExecutor(16, 2, 8);
+		AtomicInteger done = new AtomicInteger();
+		for(int i = 0; i < 200; i++){
+			executor.execute(() -> {
+				sleep(5);
+				done.incrementAndGet();
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(200, done.get());
+	}
+
+	@Test
+	void limitsConcurrentTasks() throws InterruptedException{
+		assumeTrue(VirtualThreadExecutor.isSupported(), "virtual threads are not supported by this jvm");
+		VirtualThreadExecutor executor = new VirtualThreadExecutor(4, 2, 8);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		for(int i = 0; i < 100; i++){
+			executor.execute(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				sleep(10);
+				running.decrementAndGet();
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertTrue(maxRunning.get() <= 4, "ran " + maxRunning.get() + " tasks at the same time");
+	}
+
+	@Test
+	void awaitsRunningTasks() throws InterruptedException{
+		VirtualThreadExecutor executor = new VirtualThreadExecutor(16, 2, 8);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			try{
+				release.await();
+			}
+			catch(InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertFalse(executor.awaitTermination(100, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void rejectsTasksAfterShutdown(){
+		VirtualThreadExecutor executor = new VirtualThreadExecutor(16, 2, 8);
+		executor.shutdown();
+		assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+	}
+
+	private static void sleep(long millis){
+		try{
+			Thread.sleep(millis);
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}